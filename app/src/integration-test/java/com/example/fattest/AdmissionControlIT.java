@@ -0,0 +1,66 @@
+package com.example.fattest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.main.web-application-type=servlet",
+        "app.admission.enabled=true",
+        "app.admission.rate-per-client=1",
+        "app.admission.burst=3",
+        // MockMvc requests all come from one address; tell clients apart as a trusted gateway would
+        "app.admission.trusted-client-header=X-Client-Id"
+})
+@AutoConfigureMockMvc
+class AdmissionControlIT {
+
+    private static final String FIXTURE = "wiremock/mappings/exceptions/rate-limited.json";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Should answer over-limit clients like the rate-limited WireMock stub")
+    void shouldRateLimitPerClient() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/greet").header("X-Client-Id", "burst-client")).andExpect(status().isOk());
+        }
+
+        MockHttpServletResponse rejected = mockMvc.perform(get("/greet").header("X-Client-Id", "burst-client"))
+                .andExpect(status().isTooManyRequests())
+                .andReturn().getResponse();
+
+        System.out.println("Rejected: " + rejected.getContentAsString());
+        JsonNode stub = objectMapper.readTree(TestResourceLoader.loadString(FIXTURE)).get("response");
+        JsonNode body = objectMapper.readTree(rejected.getContentAsString());
+
+        assertEquals(stub.get("jsonBody").get("error"), body.get("error"));
+        assertEquals(stub.get("jsonBody").get("code"), body.get("code"));
+        stub.get("headers").fieldNames().forEachRemaining(header ->
+                assertNotNull(rejected.getHeader(header), "Missing header " + header));
+        assertEquals("3", rejected.getHeader("X-RateLimit-Limit"));
+
+        // Other clients keep their own budget
+        mockMvc.perform(get("/greet").header("X-Client-Id", "other-client")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_admission_shed_total{reason=\"rate_limit\"} 1")));
+    }
+}
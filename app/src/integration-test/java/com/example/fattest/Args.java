@@ -0,0 +1,68 @@
+package com.example.fattest;
+
+/**
+ * Command-line options shared by the runner, the profile matrix, the load generator and the comparisons.
+ * An option is given as {@code --name value} or {@code --name=value}; the last occurrence wins. A following
+ * argument that starts with {@code --} is the next option, not a value, so {@code --name} alone takes the default.
+ * Malformed numbers are reported as {@link IllegalArgumentException} naming the option.
+ */
+final class Args {
+
+    private Args() {
+    }
+
+    /**
+     * Whether the option was given at all, with or without a value.
+     */
+    static boolean has(String[] args, String name) {
+        for (String arg : args) {
+            if (arg.equals(name) || arg.startsWith(name + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String stringArg(String[] args, String name, String defaultValue) {
+        String value = defaultValue;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith(name + "=")) {
+                value = args[i].substring(name.length() + 1);
+            } else if (args[i].equals(name) && hasValueAfter(args, i)) {
+                value = args[i + 1];
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Whether the argument after {@code args[i]} is that option's value rather than the next option.
+     */
+    static boolean hasValueAfter(String[] args, int i) {
+        return i + 1 < args.length && !args[i + 1].startsWith("--");
+    }
+
+    static int intArg(String[] args, String name, int defaultValue) {
+        String value = stringArg(args, name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " expects a whole number, got '" + value + "'");
+        }
+    }
+
+    static double doubleArg(String[] args, String name, double defaultValue) {
+        String value = stringArg(args, name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " expects a number, got '" + value + "'");
+        }
+    }
+}
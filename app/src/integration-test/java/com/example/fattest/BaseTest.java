@@ -6,6 +6,7 @@ import io.github.classgraph.ClassGraph;
 import io.github.classgraph.Resource;
 import io.github.classgraph.ScanResult;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.parallel.ResourceLock;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.web.client.RestTemplate;
 import org.wiremock.spring.ConfigureWireMock;
@@ -16,11 +17,15 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @SpringBootTest
+// Every subclass resets and re-stubs the same WireMock server, so they must not run concurrently
+@ResourceLock(BaseTest.WIREMOCK)
 @EnableWireMock({
-    @ConfigureWireMock(name = "exceptions")
+    @ConfigureWireMock(name = "exceptions", baseUrlProperties = "app.upstream.base-url")
 })
 public abstract class BaseTest {
 
+    static final String WIREMOCK = "wiremock-exceptions";
+
     private static final String MAPPINGS_PATH = "wiremock/mappings";
 
     @InjectWireMock("exceptions")
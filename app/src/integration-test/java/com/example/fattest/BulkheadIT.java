@@ -0,0 +1,62 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "app.upstream.user-path=/api/timeout",
+        "app.upstream.read-timeout=2s",
+        "app.upstream.max-concurrent-calls=2",
+        "app.upstream.batch.enabled=false"
+})
+class BulkheadIT extends BaseTest {
+
+    @Autowired
+    private UserLookupClient userLookupClient;
+
+    @Autowired
+    private PersonalizedGreetingService personalizedGreetingService;
+
+    @Autowired
+    private GreetingService greetingService;
+
+    @Test
+    @DisplayName("Should fall back at once while the timeout stub holds every bulkhead slot")
+    void shouldRejectBeyondMaxConcurrentCalls() throws Exception {
+        CompletableFuture<String> first = personalizedGreetingService.greet(1, "First").toFuture();
+        CompletableFuture<String> second = personalizedGreetingService.greet(2, "Second").toFuture();
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (userLookupClient.getInFlight() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, userLookupClient.getInFlight());
+
+        long start = System.nanoTime();
+        String third = personalizedGreetingService.greet(3, "Third").block(Duration.ofSeconds(5));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("Fallback with full bulkhead took " + elapsedMs + " ms");
+        assertEquals(greetingService.greet("Third"), third);
+        assertTrue(elapsedMs < 100, "Full bulkhead should answer at once, took " + elapsedMs + " ms");
+
+        // The hung calls end at the read timeout and fall back too
+        assertEquals(greetingService.greet("First"), first.get(5, TimeUnit.SECONDS));
+        assertEquals(greetingService.greet("Second"), second.get(5, TimeUnit.SECONDS));
+        deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        while (userLookupClient.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, userLookupClient.getInFlight());
+        wireMockServer.verify(2, getRequestedFor(urlEqualTo("/api/timeout")));
+    }
+}
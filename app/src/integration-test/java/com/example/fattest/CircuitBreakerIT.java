@@ -0,0 +1,111 @@
+package com.example.fattest;
+
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "app.upstream.user-path=/api/maintenance",
+        "app.upstream.profile-cache.enabled=false",
+        "app.upstream.breaker.window-size=4",
+        "app.upstream.breaker.minimum-calls=4",
+        "app.upstream.breaker.slow-call-duration=200ms",
+        "app.upstream.breaker.open-duration=1s",
+        "app.upstream.breaker.half-open-calls=2"
+})
+class CircuitBreakerIT extends BaseTest {
+
+    private static final String ALICE = "{\"id\": 1, \"name\": \"Alice\", \"email\": \"alice@example.com\"}";
+
+    @Autowired
+    private UserLookupClient userLookupClient;
+
+    @Autowired
+    private PersonalizedGreetingService personalizedGreetingService;
+
+    @Autowired
+    private GreetingService greetingService;
+
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void closeBreaker() throws InterruptedException {
+        breaker = userLookupClient.getCircuitBreaker();
+        StubMapping healthy = stubUser(0);
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (breaker.getState() != CircuitBreaker.State.CLOSED && System.nanoTime() < deadline) {
+            personalizedGreetingService.greet(1, null).block(Duration.ofSeconds(5));
+            Thread.sleep(50);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        wireMockServer.removeStub(healthy);
+        wireMockServer.resetRequests();
+    }
+
+    @Test
+    @DisplayName("Should open on the maintenance stub and fall back without calling it")
+    void shouldOpenOnFailures() {
+        for (int i = 0; i < 4; i++) {
+            assertEquals(greetingService.greet("Guest"), greet());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        long start = System.nanoTime();
+        String greeting = greet();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("Fallback with open breaker took " + elapsedMs + " ms");
+        assertEquals(greetingService.greet("Guest"), greeting);
+        assertTrue(elapsedMs < 100, "Open breaker should answer at once, took " + elapsedMs + " ms");
+        wireMockServer.verify(4, getRequestedFor(urlEqualTo("/api/maintenance")));
+    }
+
+    @Test
+    @DisplayName("Should probe while half-open and close once the upstream recovers")
+    void shouldCloseAfterSuccessfulProbes() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            greet();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        stubUser(0);
+        Thread.sleep(1100);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        assertEquals(greetingService.greet("Alice"), greet());
+        assertEquals(greetingService.greet("Alice"), greet());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should open when most calls are slower than the slow-call threshold")
+    void shouldOpenOnSlowCalls() {
+        stubUser(300);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(greetingService.greet("Alice"), greet());
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(greetingService.greet("Guest"), greet());
+        wireMockServer.verify(4, getRequestedFor(urlEqualTo("/api/maintenance")));
+    }
+
+    private String greet() {
+        return personalizedGreetingService.greet(1, "Guest").block(Duration.ofSeconds(5));
+    }
+
+    private StubMapping stubUser(int delayMs) {
+        return wireMockServer.stubFor(get(urlEqualTo("/api/maintenance"))
+                .atPriority(1)
+                .willReturn(okJson(ALICE).withFixedDelay(delayMs)));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ConfigReloadIT {
+
+    private static final Path CONFIG_DIR = createConfigDir();
+
+    @Autowired
+    private GreetingService greetingService;
+
+    @Autowired
+    private ConfigReloader configReloader;
+
+    @DynamicPropertySource
+    static void reloadDirectory(DynamicPropertyRegistry registry) {
+        registry.add("app.reload.directory", CONFIG_DIR::toString);
+    }
+
+    @Test
+    @DisplayName("Should publish greeting changes from the watched config directory")
+    void shouldReloadGreetingFromConfigDirectory() throws Exception {
+        String before = greetingService.greet("Reload");
+        System.out.println("Greeting before reload: " + before);
+        assertTrue(configReloader.isRunning(), "Reloader should watch " + CONFIG_DIR);
+
+        Files.writeString(CONFIG_DIR.resolve("application.yml"), """
+                app:
+                  greeting:
+                    prefix: Reloaded
+                    suffix: "?"
+                """);
+
+        String after = before;
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (after.equals(before) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            after = greetingService.greet("Reload");
+        }
+
+        System.out.println("Greeting after reload:  " + after);
+        assertEquals("Reloaded, Reload?", after);
+    }
+
+    private static Path createConfigDir() {
+        try {
+            Path dir = Files.createTempDirectory("fat-tests-config");
+            dir.toFile().deleteOnExit();
+            return dir;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
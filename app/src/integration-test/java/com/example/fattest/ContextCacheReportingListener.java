@@ -0,0 +1,109 @@
+package com.example.fattest;
+
+import org.springframework.core.Ordered;
+import org.springframework.test.context.MergedContextConfiguration;
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records, for every Spring test class, whether its application context came from Spring's context cache
+ * or had to be started, and how long starting it took. Registered through {@code META-INF/spring.factories};
+ * {@link TestRunner} prints the report after the run, and {@link PerformanceGateExtension} leaves the startup
+ * out of class times and compares it on its own.
+ */
+public class ContextCacheReportingListener extends AbstractTestExecutionListener {
+
+    // guarded by itself; Spring creates a listener instance per test class
+    private static final Map<MergedContextConfiguration, ContextStats> contexts = new LinkedHashMap<>();
+    private static final Map<Class<?>, Loading> loadings = new ConcurrentHashMap<>();
+
+    @Override
+    public int getOrder() {
+        // Before any listener that could load the context itself
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public void beforeTestClass(TestContext testContext) {
+        MergedContextConfiguration key = ContextGroupingClassOrderer.contextKey(testContext.getTestClass());
+        if (key == null) {
+            return;
+        }
+        boolean cached = testContext.hasApplicationContext();
+        long start = System.nanoTime();
+        testContext.getApplicationContext();
+        long end = System.nanoTime();
+        loadings.put(testContext.getTestClass(), new Loading(start, end, cached ? -1 : end - start));
+        record(key, testContext.getTestClass().getSimpleName(), cached ? -1 : end - start);
+    }
+
+    /**
+     * How much of {@code [fromNanos, toNanos]} the test class spent starting its context, or waiting for
+     * another class to start it.
+     */
+    static long contextLoadingNanos(Class<?> testClass, long fromNanos, long toNanos) {
+        Loading loading = loadings.get(testClass);
+        return loading == null ? 0 : Math.max(0, Math.min(toNanos, loading.endNanos()) - Math.max(fromNanos, loading.startNanos()));
+    }
+
+    /**
+     * How long the test class took to start its context, or -1 if it took the context from the cache or has none.
+     */
+    static long contextStartupNanos(Class<?> testClass) {
+        Loading loading = loadings.get(testClass);
+        return loading == null ? -1 : loading.startupNanos();
+    }
+
+    /**
+     * @param startupNanos how long the context took to start, or -1 if it was taken from the cache
+     */
+    static void record(MergedContextConfiguration key, String usedBy, long startupNanos) {
+        synchronized (contexts) {
+            ContextStats stats = contexts.computeIfAbsent(key, k -> new ContextStats());
+            if (startupNanos < 0) {
+                stats.reusedBy.add(usedBy);
+            } else {
+                stats.builtBy = usedBy;
+                stats.startupNanos += startupNanos;
+                stats.builds++;
+            }
+        }
+    }
+
+    public static String describe() {
+        StringBuilder report = new StringBuilder();
+        synchronized (contexts) {
+            int builds = 0;
+            int hits = 0;
+            long startupNanos = 0;
+            int n = 0;
+            for (ContextStats stats : contexts.values()) {
+                builds += stats.builds;
+                hits += stats.reusedBy.size();
+                startupNanos += stats.startupNanos;
+                report.append(String.format("  #%d %6d ms  built by %s, %d cache hit(s)%s%n",
+                        ++n, stats.startupNanos / 1_000_000, stats.builtBy, stats.reusedBy.size(),
+                        stats.reusedBy.isEmpty() ? "" : " " + stats.reusedBy));
+            }
+            report.insert(0, String.format("Spring contexts: %d started in %.1f s, %d cache hit(s)%n",
+                    builds, startupNanos / 1e9, hits));
+        }
+        return report.toString().stripTrailing();
+    }
+
+    private record Loading(long startNanos, long endNanos, long startupNanos) {
+    }
+
+    private static final class ContextStats {
+        private String builtBy = "?";
+        private long startupNanos;
+        private int builds;
+        private final List<String> reusedBy = new ArrayList<>();
+    }
+}
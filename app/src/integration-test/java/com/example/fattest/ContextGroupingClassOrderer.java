@@ -0,0 +1,60 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.test.context.BootstrapUtils;
+import org.springframework.test.context.BootstrapWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.MergedContextConfiguration;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Runs test classes that share a Spring context configuration next to each other, so each context is
+ * built once and the classes using it follow while it is still warm. Groups keep the order in which
+ * their first class was discovered; classes without a Spring context run last. The groups come from the
+ * {@link TestIndex} when the jar has one, which saves resolving every configuration again.
+ */
+public class ContextGroupingClassOrderer implements ClassOrderer {
+
+    /**
+     * Configuration parameter that turns off reading the groups from the {@link TestIndex}.
+     */
+    static final String USE_INDEX = "fattests.index.enabled";
+
+    @Override
+    public void orderClasses(ClassOrdererContext context) {
+        boolean useIndex = context.getConfigurationParameter(USE_INDEX).map(Boolean::parseBoolean).orElse(true);
+        TestIndex index = useIndex ? TestIndex.bundled() : null;
+        Map<Object, Integer> groups = new HashMap<>();
+        Map<ClassDescriptor, Integer> groupOf = new IdentityHashMap<>();
+        for (ClassDescriptor descriptor : context.getClassDescriptors()) {
+            Class<?> testClass = descriptor.getTestClass();
+            TestIndex.Entry entry = index != null ? index.entries().get(testClass.getName()) : null;
+            Object key = entry != null ? entry.contextGroup() : contextKey(testClass);
+            groupOf.put(descriptor, key == null ? Integer.MAX_VALUE : groups.computeIfAbsent(key, k -> groups.size()));
+        }
+        context.getClassDescriptors().sort(Comparator.comparingInt(groupOf::get));
+    }
+
+    /**
+     * The configuration Spring's context cache is keyed by, or {@code null} if the class has no Spring context.
+     */
+    static MergedContextConfiguration contextKey(Class<?> testClass) {
+        MergedAnnotations annotations = MergedAnnotations.from(testClass, MergedAnnotations.SearchStrategy.TYPE_HIERARCHY);
+        if (!annotations.isPresent(BootstrapWith.class) && !annotations.isPresent(ContextConfiguration.class)) {
+            return null;
+        }
+        try {
+            return BootstrapUtils.resolveTestContextBootstrapper(testClass).buildMergedContextConfiguration();
+        } catch (RuntimeException e) {
+            // Let the test itself report a broken configuration
+            return null;
+        }
+    }
+}
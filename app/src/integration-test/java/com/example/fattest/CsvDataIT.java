@@ -96,7 +96,7 @@ class CsvDataIT {
         System.out.println("Electronics total: $" + total);
     }
 
-    private List<String[]> loadCsvFromFile(File file) throws Exception {
+    static List<String[]> loadCsvFromFile(File file) throws Exception {
         List<String[]> rows = new ArrayList<>();
 
         try (BufferedReader reader = new BufferedReader(
@@ -2,18 +2,24 @@ package com.example.fattest;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceLock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.main.web-application-type=servlet")
 @AutoConfigureMockMvc
+// Its /greet requests would skew the counts MetricsIT asserts on
+@ResourceLock("servlet-request-metrics")
 class GreetingControllerIT {
 
     @Autowired
@@ -53,4 +59,63 @@ class GreetingControllerIT {
                 .andExpect(status().isOk())
                 .andExpect(content().string(expected));
     }
+
+    @Test
+    @DisplayName("Should return ETag and Cache-Control and honor If-None-Match")
+    void shouldSupportConditionalRequests() throws Exception {
+        String etag = mockMvc.perform(get("/greet").param("name", "Bob"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", "max-age=60, public"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        System.out.println("ETag for Bob: " + etag);
+
+        mockMvc.perform(get("/greet").param("name", "Bob").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/greet").param("name", "Alice").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should stream NDJSON greetings for a JSON array of names")
+    void shouldStreamBatchGreetingsFromJsonArray() throws Exception {
+        String prefix = appConfig.getGreeting().getPrefix();
+        String suffix = appConfig.getGreeting().getSuffix();
+        String expected = "{\"name\":\"Alice\",\"greeting\":\"" + prefix + ", Alice" + suffix + "\"}\n"
+                + "{\"name\":\"Bob\",\"greeting\":\"" + prefix + ", Bob" + suffix + "\"}\n";
+
+        mockMvc.perform(post("/greet/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"Alice\", \"Bob\"]"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expected));
+    }
+
+    @Test
+    @DisplayName("Should stream NDJSON greetings for newline-delimited names")
+    void shouldStreamBatchGreetingsFromLines() throws Exception {
+        String prefix = appConfig.getGreeting().getPrefix();
+        String suffix = appConfig.getGreeting().getSuffix();
+        String expected = "{\"name\":\"Carol\",\"greeting\":\"" + prefix + ", Carol" + suffix + "\"}\n";
+
+        mockMvc.perform(post("/greet/batch")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("Carol\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(expected));
+    }
+
+    @Test
+    @DisplayName("Should reject a batch with a malformed Content-Type")
+    void shouldRejectBatchWithMalformedContentType() throws Exception {
+        mockMvc.perform(post("/greet/batch")
+                        .header("Content-Type", "not a media type")
+                        .content("Carol\n"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
 }
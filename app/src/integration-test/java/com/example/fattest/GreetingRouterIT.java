@@ -0,0 +1,59 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Runs the {@link GreetingControllerIT} /greet expectations against the functional WebFlux routes.
+ */
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+class GreetingRouterIT {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private AppConfig appConfig;
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    @DisplayName("Should return greeting with name parameter using profile config (reactive)")
+    void shouldReturnGreetingWithName() {
+        String prefix = appConfig.getGreeting().getPrefix();
+        String suffix = appConfig.getGreeting().getSuffix();
+        String expected = prefix + ", Bob" + suffix;
+
+        System.out.println("Testing reactive routes with profile: " + String.join(", ", environment.getActiveProfiles()));
+        System.out.println("Expected greeting: " + expected);
+
+        webTestClient.get().uri("/greet?name={name}", "Bob")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_PLAIN)
+                .expectBody(String.class).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Should return default greeting without name parameter using profile config (reactive)")
+    void shouldReturnDefaultGreeting() {
+        String prefix = appConfig.getGreeting().getPrefix();
+        String suffix = appConfig.getGreeting().getSuffix();
+        String expected = prefix + ", World" + suffix;
+
+        System.out.println("Expected default greeting: " + expected);
+
+        webTestClient.get().uri("/greet")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.fattest;
+
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Compares latencies, so it runs with nothing else competing for the CPU
+@Isolated
+class HedgingIT extends BaseTest {
+
+    private static final int REPLICAS = 10;
+    private static final int SLOW_DELAY_MS = 400;
+    private static final int WARMUP = 20;
+    private static final int MEASURED = 40;
+
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+
+    @Test
+    @DisplayName("Should cut tail latency when one lookup in ten hits a slow replica")
+    void shouldHedgeSlowLookups() {
+        stubSlowReplica();
+
+        UserLookupClient plain = client(false);
+        UserLookupClient hedged = client(true);
+        try {
+            long[] plainLatencies = measure(plain);
+            long[] hedgedLatencies = measure(hedged);
+
+            System.out.println("Without hedging: " + describe(plainLatencies));
+            System.out.println("With hedging:    " + describe(hedgedLatencies) + ", delay "
+                    + hedged.hedgeDelayNanos() / 1_000_000 + " ms");
+            System.out.println("Hedges: " + hedged.getHedges() + " sent, " + hedged.getHedgeWins() + " won, "
+                    + hedged.getHedgeLosersCancelled() + " losing requests cancelled");
+            assertTrue(hedged.getHedgeWins() > 0, "A hedge should answer before the slow replica");
+            assertTrue(hedged.getHedgeLosersCancelled() >= hedged.getHedgeWins(),
+                    "The slow requests that lost should be cancelled");
+            // a busy machine can stall any single lookup, so compare how many hit the slow replica's delay
+            int plainSlow = slowLookups(plainLatencies);
+            int hedgedSlow = slowLookups(hedgedLatencies);
+            assertEquals(MEASURED / REPLICAS, plainSlow, "Slow replica should show in the plain tail");
+            assertTrue(hedgedSlow <= plainSlow / 2,
+                    "Hedging should cut the tail, " + hedgedSlow + " of " + MEASURED + " lookups were still slow");
+        } finally {
+            plain.close();
+            hedged.close();
+        }
+    }
+
+    /**
+     * Every tenth request to {@code /api/users/1} is slow, the way one replica of ten would be.
+     */
+    private void stubSlowReplica() {
+        for (int i = 0; i < REPLICAS; i++) {
+            String state = i == 0 ? Scenario.STARTED : "replica-" + i;
+            wireMockServer.stubFor(get(urlEqualTo("/api/users/1"))
+                    .atPriority(1)
+                    .inScenario("replicas").whenScenarioStateIs(state)
+                    .willReturn(okJson("{\"id\": 1, \"name\": \"Alice\", \"email\": \"alice@example.com\"}")
+                            .withFixedDelay(i == REPLICAS - 1 ? SLOW_DELAY_MS : 0))
+                    .willSetStateTo(i == REPLICAS - 1 ? Scenario.STARTED : "replica-" + (i + 1)));
+        }
+    }
+
+    private UserLookupClient client(boolean hedge) {
+        AppConfig config = new AppConfig();
+        config.getUpstream().setBaseUrl(getWireMockUrl());
+        config.getUpstream().getHedge().setEnabled(hedge);
+        // one lookup in REPLICAS is slow, so the delay has to sit below the 90th percentile
+        config.getUpstream().getHedge().setPercentile(80);
+        config.getUpstream().getHedge().setMinDelay(Duration.ofMillis(20));
+        config.getUpstream().getHedge().setMinSamples(WARMUP);
+        // close a delay window every WARMUP lookups, so hedging starts right after warm-up
+        config.getUpstream().getHedge().setWindow(Duration.ZERO);
+        return new UserLookupClient(config, webClientBuilder);
+    }
+
+    private static long[] measure(UserLookupClient client) {
+        for (int i = 0; i < WARMUP; i++) {
+            client.lookup(1).block(Duration.ofSeconds(5));
+        }
+        long[] latencies = new long[MEASURED];
+        for (int i = 0; i < MEASURED; i++) {
+            long start = System.nanoTime();
+            assertEquals("Alice", client.lookup(1).block(Duration.ofSeconds(5)).name());
+            latencies[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static int slowLookups(long[] latencies) {
+        return (int) Arrays.stream(latencies).filter(latency -> latency >= SLOW_DELAY_MS).count();
+    }
+
+    private static long max(long[] sorted) {
+        return sorted[sorted.length - 1];
+    }
+
+    private static String describe(long[] sorted) {
+        return "p50 " + sorted[sorted.length / 2] + " ms, p95 " + sorted[(int) (sorted.length * 0.95)]
+                + " ms, max " + max(sorted) + " ms";
+    }
+}
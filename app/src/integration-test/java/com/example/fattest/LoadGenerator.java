@@ -0,0 +1,285 @@
+package com.example.fattest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load mode of the tests jar: drives one URL for a fixed time and reports throughput and latency percentiles.
+ * <p>
+ * {@code java -jar fat-tests-app-tests.jar --load http://host:8080/greet --rate 500 --duration 30s}
+ * sends requests open-loop on a fixed schedule, and latency is measured from the scheduled send time,
+ * so a stalled server is charged for every request that should have been sent meanwhile.
+ * {@code --concurrency 32} instead runs closed-loop workers; their latencies are corrected for
+ * coordinated omission using the mean latency seen during warm-up as the expected interval.
+ * <p>
+ * The exit code is 1 when the error rate exceeds {@code --max-error-percent} (default 1) or the corrected
+ * p99 exceeds {@code --max-p99} (optional), so the mode can gate a deploy.
+ */
+public class LoadGenerator {
+
+    private static final String DEFAULT_TARGET = "http://localhost:8080/greet";
+
+    private final Options options;
+    private final HttpClient client;
+    private final HttpRequest request;
+
+    // Latency from the intended send time (open loop) or with back-filled stalls (closed loop), failures included
+    private final LatencyHistogram corrected = new LatencyHistogram();
+    // Latency of successful requests from the actual send time, what a naive load tool would report
+    private final LatencyHistogram service = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    LoadGenerator(Options options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(options.timeout())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.request = HttpRequest.newBuilder(options.target()).timeout(options.timeout()).GET().build();
+    }
+
+    public static boolean isRequested(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--load") || arg.startsWith("--load=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the load test described by {@code args} and returns the process exit code.
+     */
+    public static int run(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid load options: " + e.getMessage());
+            return 2;
+        }
+        return new LoadGenerator(options).execute();
+    }
+
+    int execute() {
+        System.out.println("==========================================");
+        System.out.println("       Fat Tests - Load Generator");
+        System.out.println("==========================================");
+        System.out.println("Target:      " + options.target());
+        System.out.println("Mode:        " + (options.isOpenLoop()
+                ? "open loop, " + options.rate() + " req/s"
+                : "closed loop, " + options.concurrency() + " workers"));
+        System.out.println("Warm-up:     " + options.warmup().toMillis() + " ms");
+        System.out.println("Duration:    " + options.duration().toMillis() + " ms");
+        System.out.println();
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+
+        long expectedInterval = 0;
+        if (options.isOpenLoop()) {
+            runOpenLoop(start, measureFrom, end);
+        } else {
+            expectedInterval = warmUpClosedLoop(measureFrom);
+            runClosedLoop(end, expectedInterval);
+        }
+        // Open loop waits for in-flight requests, so a backlog stretches the window instead of inflating throughput
+        double seconds = (System.nanoTime() - measureFrom) / 1e9;
+
+        return report(seconds, expectedInterval);
+    }
+
+    private void runOpenLoop(long start, long measureFrom, long end) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intended = start + scheduledOffsetNanos(i, options.rate());
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                boolean measured = intended >= measureFrom;
+                executor.execute(() -> {
+                    long sent = System.nanoTime();
+                    Outcome outcome = send();
+                    long done = System.nanoTime();
+                    if (measured) {
+                        count(outcome);
+                        corrected.record(recordedLatency(done - intended, outcome, options.timeout()));
+                        if (outcome == Outcome.OK) {
+                            service.record(done - sent);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Runs the workers until {@code measureFrom} and returns their mean request latency.
+     */
+    private long warmUpClosedLoop(long measureFrom) {
+        LatencyHistogram warmup = new LatencyHistogram();
+        runWorkers(measureFrom, (latency, outcome) -> {
+            if (outcome == Outcome.OK) {
+                warmup.record(latency);
+            }
+        });
+        LatencyHistogram.Snapshot snapshot = warmup.snapshot();
+        return snapshot.getCount() == 0 ? 0 : (long) (snapshot.getSum() / snapshot.getCount());
+    }
+
+    private void runClosedLoop(long end, long expectedInterval) {
+        runWorkers(end, (latency, outcome) -> {
+            count(outcome);
+            corrected.recordWithExpectedInterval(recordedLatency(latency, outcome, options.timeout()), expectedInterval);
+            if (outcome == Outcome.OK) {
+                service.record(latency);
+            }
+        });
+    }
+
+    private void runWorkers(long until, Sample sample) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.concurrency(); i++) {
+                executor.execute(() -> {
+                    while (System.nanoTime() < until) {
+                        long sent = System.nanoTime();
+                        Outcome outcome = send();
+                        sample.accept(System.nanoTime() - sent, outcome);
+                    }
+                });
+            }
+        }
+    }
+
+    private Outcome send() {
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status < 400 ? Outcome.OK : Outcome.ERROR;
+        } catch (HttpTimeoutException e) {
+            return Outcome.TIMEOUT;
+        } catch (IOException e) {
+            return Outcome.ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.ERROR;
+        }
+    }
+
+    private void count(Outcome outcome) {
+        completed.increment();
+        if (outcome != Outcome.OK) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * When request {@code i} of an open-loop run is due, relative to the start. Computed per request
+     * rather than as {@code i} whole-nanosecond intervals, so rounding does not add up over a long run.
+     */
+    static long scheduledOffsetNanos(long i, double rate) {
+        return (long) (i * 1e9 / rate);
+    }
+
+    /**
+     * The latency a request is charged with in the corrected histogram. Failures count with the time
+     * they took, and a timeout with at least the timeout, so a stalling server cannot improve the
+     * percentiles by failing requests.
+     */
+    static long recordedLatency(long measuredNanos, Outcome outcome, Duration timeout) {
+        return outcome == Outcome.TIMEOUT ? Math.max(measuredNanos, timeout.toNanos()) : measuredNanos;
+    }
+
+    private int report(double seconds, long expectedInterval) {
+        LatencyHistogram.Snapshot latency = corrected.snapshot();
+        LatencyHistogram.Snapshot raw = service.snapshot();
+        long total = completed.sum();
+        long failed = errors.sum();
+        double errorPercent = total == 0 ? 100 : failed * 100.0 / total;
+
+        System.out.println("==========================================");
+        System.out.println("              LOAD RESULTS");
+        System.out.println("==========================================");
+        System.out.printf("Requests:    %d (%d errors, %.2f%%)%n", total, failed, errorPercent);
+        System.out.printf("Throughput:  %.1f req/s%n", (total - failed) / seconds);
+        if (!options.isOpenLoop()) {
+            System.out.printf("Expected interval for correction: %.2f ms%n", expectedInterval / 1e6);
+        }
+        System.out.println();
+        System.out.printf("%-10s %12s %12s%n", "", "corrected", "service");
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            System.out.printf("%-10s %9.2f ms %9.2f ms%n", "p" + formatPercentile(percentile),
+                    latency.valueAtPercentile(percentile) / 1e6, raw.valueAtPercentile(percentile) / 1e6);
+        }
+        System.out.printf("%-10s %9.2f ms %9.2f ms%n", "max", latency.getMax() / 1e6, raw.getMax() / 1e6);
+        System.out.println("==========================================");
+
+        boolean pass = errorPercent <= options.maxErrorPercent();
+        if (!pass) {
+            System.out.printf("FAILED: error rate %.2f%% above %.2f%%%n", errorPercent, options.maxErrorPercent());
+        }
+        if (options.maxP99() != null && latency.valueAtPercentile(99) > options.maxP99().toNanos()) {
+            System.out.printf("FAILED: p99 %.2f ms above %d ms%n",
+                    latency.valueAtPercentile(99) / 1e6, options.maxP99().toMillis());
+            pass = false;
+        }
+        return pass ? 0 : 1;
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+
+    enum Outcome { OK, ERROR, TIMEOUT }
+
+    @FunctionalInterface
+    private interface Sample {
+        void accept(long latencyNanos, Outcome outcome);
+    }
+
+    /**
+     * Parsed {@code --load} options. Durations accept {@code 500ms}, {@code 30s}, {@code 2m} or ISO-8601.
+     */
+    record Options(URI target, double rate, int concurrency, Duration duration, Duration warmup,
+                   Duration timeout, double maxErrorPercent, Duration maxP99) {
+
+        boolean isOpenLoop() {
+            return rate > 0;
+        }
+
+        static Options parse(String[] args) {
+            String target = Args.stringArg(args, "--load", DEFAULT_TARGET);
+            double rate = Args.doubleArg(args, "--rate", 0);
+            int concurrency = Args.intArg(args, "--concurrency", rate > 0 ? 0 : 16);
+            if (rate > 0 && concurrency > 0) {
+                throw new IllegalArgumentException("use either --rate or --concurrency, not both");
+            }
+            if (rate <= 0 && concurrency <= 0) {
+                throw new IllegalArgumentException("--rate or --concurrency must be positive");
+            }
+            String maxP99 = Args.stringArg(args, "--max-p99", null);
+            return new Options(URI.create(target), rate, concurrency,
+                    DurationStyle.detectAndParse(Args.stringArg(args, "--duration", "30s")),
+                    DurationStyle.detectAndParse(Args.stringArg(args, "--warmup", "5s")),
+                    DurationStyle.detectAndParse(Args.stringArg(args, "--timeout", "10s")),
+                    Args.doubleArg(args, "--max-error-percent", 1),
+                    maxP99 != null ? DurationStyle.detectAndParse(maxP99) : null);
+        }
+    }
+}
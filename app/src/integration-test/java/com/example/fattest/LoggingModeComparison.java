@@ -0,0 +1,123 @@
+package com.example.fattest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares /greet latency with synchronous ({@code log4j2.xml}) and async ({@code log4j2-async.xml})
+ * logging while every request writes a few INFO lines from {@code com.example.fattest}.
+ * <p>
+ * Log output goes to stdout and the results to stderr, so point stdout at the sink you want to measure:
+ * {@code mvn -q compile exec:java -Dexec.mainClass=com.example.fattest.LoggingModeComparison
+ * -Dexec.args="--concurrency 64 --log-lines 5 --duration-s 15 --queue-full-policy block" > target/logging.out}
+ */
+public class LoggingModeComparison {
+
+    private static final String[] CONFIGS = {"classpath:log4j2.xml", "classpath:log4j2-async.xml"};
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Args.intArg(args, "--concurrency", 64);
+        int logLines = Args.intArg(args, "--log-lines", 5);
+        int durationSeconds = Args.intArg(args, "--duration-s", 15);
+        String policy = Args.stringArg(args, "--queue-full-policy", "block");
+
+        PrintStream report = System.err;
+        report.println("==========================================");
+        report.println("  /greet: sync vs async logging");
+        report.println("==========================================");
+        report.println("Client concurrency:  " + concurrency);
+        report.println("Log lines/request:   " + logLines);
+        report.println("Queue-full policy:   " + policy + " (async only)");
+        report.println("Duration per mode:   " + durationSeconds + " s");
+        report.println();
+
+        List<String> results = new ArrayList<>();
+        for (String config : CONFIGS) {
+            results.add(run(config, policy, concurrency, logLines, durationSeconds));
+        }
+
+        report.println();
+        report.printf("%-28s %10s %8s %8s %8s %10s %10s%n",
+                "config", "req/s", "p50 ms", "p99 ms", "max ms", "blocked", "dropped");
+        results.forEach(report::println);
+        System.exit(0);
+    }
+
+    private static String run(String config, String policy, int concurrency, int logLines, int durationSeconds)
+            throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FatTestsApplication.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx).registerBean(
+                        RequestLoggingFilter.class, () -> new RequestLoggingFilter(logLines)))
+                .run("--server.port=0", "--app.admission.enabled=false", "--logging.config=" + config,
+                        "--app.logging.queue-full-policy=" + policy)) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/greet?name=Load");
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+
+            ThreadModeComparison.drive(client, uri, concurrency, System.nanoTime() + Duration.ofSeconds(2).toNanos());
+
+            long blocked = CountingAsyncQueueFullPolicy.getBlockedCount();
+            long dropped = CountingAsyncQueueFullPolicy.getDroppedCount();
+            long start = System.nanoTime();
+            long[] latencies = ThreadModeComparison.drive(client, uri, concurrency,
+                    start + Duration.ofSeconds(durationSeconds).toNanos());
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            return String.format("%-28s %10.1f %8.2f %8.2f %8.2f %10d %10d", config,
+                    latencies.length / elapsedSeconds,
+                    ThreadModeComparison.percentile(latencies, 0.50) / 1e6,
+                    ThreadModeComparison.percentile(latencies, 0.99) / 1e6,
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6,
+                    CountingAsyncQueueFullPolicy.getBlockedCount() - blocked,
+                    CountingAsyncQueueFullPolicy.getDroppedCount() - dropped);
+        }
+    }
+
+
+    /**
+     * Stands in for access and debug logging done while handling a request.
+     */
+    static class RequestLoggingFilter extends OncePerRequestFilter {
+
+        private static final Logger logger = LogManager.getLogger("com.example.fattest.RequestLog");
+
+        private final int lines;
+
+        RequestLoggingFilter(int lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            for (int i = 0; i < lines; i++) {
+                logger.info("{} {} step {} of {}", request.getMethod(), request.getRequestURI(), i + 1, lines);
+            }
+            chain.doFilter(request, response);
+        }
+    }
+}
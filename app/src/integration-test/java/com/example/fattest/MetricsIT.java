@@ -0,0 +1,52 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.main.web-application-type=servlet")
+@AutoConfigureMockMvc
+// Asserts exact /greet counts, so nothing else may hit the shared servlet context meanwhile
+@ResourceLock("servlet-request-metrics")
+class MetricsIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RequestMetrics requestMetrics;
+
+    @Test
+    @DisplayName("Should count /greet requests and expose them in Prometheus format")
+    void shouldExposeGreetMetrics() throws Exception {
+        RequestMetrics.EndpointStats before = requestMetrics.get("/greet");
+        long countBefore = before != null ? before.getRequestCount() : 0;
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/greet").param("name", "Metrics" + i)).andExpect(status().isOk());
+        }
+
+        assertEquals(countBefore + 5, requestMetrics.get("/greet").getRequestCount());
+
+        String body = mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("# TYPE http_server_requests_total counter")))
+                .andExpect(content().string(containsString("http_server_request_duration_seconds{endpoint=\"/greet\",quantile=\"0.99\"}")))
+                .andExpect(content().string(containsString("http_server_request_duration_seconds_max{endpoint=\"/greet\"}")))
+                .andExpect(content().string(containsString("greeting_cache_hits_total")))
+                .andReturn().getResponse().getContentAsString();
+
+        System.out.println("Metrics scrape:");
+        System.out.println(body);
+    }
+}
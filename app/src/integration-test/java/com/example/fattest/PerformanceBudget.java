@@ -0,0 +1,29 @@
+package com.example.fattest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides how far a test (or, on a class, the class and its tests) may exceed its baseline before
+ * {@link PerformanceGateExtension} reports it. Attributes left at -1 use the runner-wide defaults.
+ * <p>
+ * A test's time may grow by {@code max(baseline * tolerancePercent / 100, toleranceMillis)}, so a test
+ * dominated by a fixed delay should set {@code tolerancePercent = 0} and budget the overhead in millis.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PerformanceBudget {
+
+    int tolerancePercent() default -1;
+
+    long toleranceMillis() default -1;
+
+    int allocationTolerancePercent() default -1;
+
+    /**
+     * Only warn when over budget, even when the runner fails tests for it.
+     */
+    boolean warnOnly() default false;
+}
@@ -0,0 +1,335 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.opentest4j.AssertionFailedError;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares how long each test and test class took, and how much each test allocated, with a baseline file,
+ * and fails (or warns about) the ones that exceed it by more than their tolerance.
+ * <p>
+ * Test times are measured from before the {@code @BeforeEach} methods to after the {@code @AfterEach} ones,
+ * so WireMock mapping loading counts. Class times leave out starting the Spring context: whichever class of a
+ * run or shard uses a context first would otherwise carry it. The startup is compared on its own instead, keyed
+ * by context group and with its own tolerance; contexts started up front by {@code --warm-contexts} are not.
+ * The first class of a run also pays for warming up the JVM (class loading, JIT, Mockito's agent, the first
+ * classpath scan), so the baseline records which class ran first, and a class that runs first now but did not
+ * then is neither compared nor recorded.
+ * Allocations are only compared for tests: a class may run its tests on other threads.
+ * Tests that failed on their own are neither compared nor recorded.
+ * <p>
+ * Baseline entries are keyed by the active profile, so one file can hold the baselines of a profile matrix.
+ * {@link TestRunner} registers the extension through auto-detection and passes its settings as
+ * configuration parameters; {@code --update-baseline} records the run instead of comparing it.
+ */
+public class PerformanceGateExtension implements BeforeAllCallback, AfterAllCallback, BeforeEachCallback, AfterEachCallback {
+
+    static final String DEFAULT_BASELINE = "fat-tests-baseline.properties";
+
+    static final String BASELINE = "fattests.perf.baseline";
+    static final String MODE = "fattests.perf.mode";
+    static final String PROFILE = "fattests.perf.profile";
+    static final String TOLERANCE_PERCENT = "fattests.perf.tolerance-percent";
+    static final String TOLERANCE_MILLIS = "fattests.perf.tolerance-millis";
+    static final String ALLOCATION_TOLERANCE_PERCENT = "fattests.perf.allocation-tolerance-percent";
+    static final String CONTEXT_TOLERANCE_PERCENT = "fattests.perf.context-tolerance-percent";
+    static final String CONTEXT_TOLERANCE_MILLIS = "fattests.perf.context-tolerance-millis";
+
+    enum Mode { FAIL, WARN, UPDATE }
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(PerformanceGateExtension.class);
+    private static final Pattern INVOCATION = Pattern.compile("\\[test-template-invocation:#(\\d+)]$");
+    // Below this, allocation differences are GC and buffer noise rather than a regression
+    private static final long ALLOCATION_SLACK_BYTES = 16L << 20;
+    // Short tests jitter by a few hundred ms on a busy machine (GC, JIT, WireMock threads)
+    private static final long DEFAULT_TOLERANCE_MILLIS = 500;
+    // A context started early in a shard loads the classes (and pays the JIT) that a full run spent on earlier contexts
+    private static final long DEFAULT_CONTEXT_TOLERANCE_MILLIS = 3000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        Gate gate = gate(context);
+        Class<?> testClass = context.getRequiredTestClass();
+        if (gate != null && gate.firstClass.compareAndSet(null, testClass) && !gate.ranFirstInBaseline(testClass)) {
+            gate.warmUpClass = testClass;
+            System.out.println("Performance gate: " + testClass.getSimpleName()
+                    + " runs first and warms up the JVM, but did not in the baseline; not comparing it");
+        }
+        start(context);
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        finish(context, context.getRequiredTestClass().getName(), true);
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        start(context);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        finish(context, testKey(context), false);
+    }
+
+    /**
+     * {@code Class#method}, with the invocation number appended for parameterized and repeated tests.
+     */
+    static String testKey(ExtensionContext context) {
+        String key = context.getRequiredTestClass().getName() + "#" + context.getRequiredTestMethod().getName();
+        Matcher invocation = INVOCATION.matcher(context.getUniqueId());
+        return invocation.find() ? key + "[" + invocation.group(1) + "]" : key;
+    }
+
+    private static void start(ExtensionContext context) {
+        if (gate(context) != null) {
+            context.getStore(NAMESPACE).put(Start.class, new Start(System.nanoTime(), allocatedBytes()));
+        }
+    }
+
+    private static void finish(ExtensionContext context, String key, boolean isClass) {
+        Gate gate = gate(context);
+        Start start = context.getStore(NAMESPACE).remove(Start.class, Start.class);
+        Class<?> testClass = context.getRequiredTestClass();
+        if (gate == null || start == null || context.getExecutionException().isPresent() || gate.warmUpClass == testClass) {
+            return;
+        }
+        long end = System.nanoTime();
+        long wallNanos = end - start.nanos();
+        List<String> violations = new ArrayList<>();
+        if (isClass) {
+            wallNanos -= ContextCacheReportingListener.contextLoadingNanos(testClass, start.nanos(), end);
+            long startupNanos = ContextCacheReportingListener.contextStartupNanos(testClass);
+            if (startupNanos >= 0) {
+                Optional.ofNullable(gate.checkContext(gate.contextGroup(testClass), startupNanos / 1_000_000))
+                        .ifPresent(violations::add);
+            }
+            gate.recordRanFirst(key, gate.firstClass.get() == testClass);
+        }
+        long wallMillis = wallNanos / 1_000_000;
+        long allocated = !isClass && start.allocatedBytes() >= 0 ? allocatedBytes() - start.allocatedBytes() : -1;
+        PerformanceBudget budget = context.getTestMethod()
+                .flatMap(method -> AnnotationSupport.findAnnotation(method, PerformanceBudget.class))
+                .or(() -> AnnotationSupport.findAnnotation(testClass, PerformanceBudget.class))
+                .orElse(null);
+
+        Optional.ofNullable(gate.check(key, wallMillis, allocated, budget)).ifPresent(violations::add);
+        if (violations.isEmpty()) {
+            return;
+        }
+        String violation = String.join("; ", violations);
+        context.publishReportEntry("performance", violation);
+        if (gate.mode == Mode.WARN || budget != null && budget.warnOnly()) {
+            System.out.println("PERFORMANCE WARNING: " + violation);
+        } else {
+            throw new AssertionFailedError(violation);
+        }
+    }
+
+    /**
+     * The gate of this run, or {@code null} when the runner did not configure a baseline.
+     */
+    private static Gate gate(ExtensionContext context) {
+        Optional<String> baseline = context.getConfigurationParameter(BASELINE);
+        if (baseline.isEmpty()) {
+            return null;
+        }
+        return context.getRoot().getStore(NAMESPACE).getOrComputeIfAbsent(Gate.class, type -> new Gate(context,
+                Path.of(baseline.get())), Gate.class);
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled()
+                ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private record Start(long nanos, long allocatedBytes) {
+    }
+
+    /**
+     * Baseline values of the run plus, when updating, what this run measured. Stored in the root context,
+     * so closing it at the end of the run writes the updated baseline.
+     */
+    private static final class Gate implements ExtensionContext.Store.CloseableResource {
+
+        private final Path file;
+        private final Mode mode;
+        private final String profile;
+        private final int tolerancePercent;
+        private final long toleranceMillis;
+        private final int allocationTolerancePercent;
+        private final int contextTolerancePercent;
+        private final long contextToleranceMillis;
+        private final TestIndex index;
+        private final Properties baseline = new Properties();
+        private final Map<String, Long> measured = new ConcurrentHashMap<>();
+        // ranFirst entries of recorded classes that did not run first this time
+        private final Set<String> notFirst = ConcurrentHashMap.newKeySet();
+        private final AtomicReference<Class<?>> firstClass = new AtomicReference<>();
+        private volatile Class<?> warmUpClass;
+
+        Gate(ExtensionContext context, Path file) {
+            this.file = file;
+            this.mode = context.getConfigurationParameter(MODE, value -> Mode.valueOf(value.toUpperCase())).orElse(Mode.FAIL);
+            this.profile = context.getConfigurationParameter(PROFILE).orElse("default");
+            this.tolerancePercent = context.getConfigurationParameter(TOLERANCE_PERCENT, Integer::valueOf).orElse(50);
+            this.toleranceMillis = context.getConfigurationParameter(TOLERANCE_MILLIS, Long::valueOf).orElse(DEFAULT_TOLERANCE_MILLIS);
+            this.allocationTolerancePercent =
+                    context.getConfigurationParameter(ALLOCATION_TOLERANCE_PERCENT, Integer::valueOf).orElse(50);
+            this.contextTolerancePercent = context.getConfigurationParameter(CONTEXT_TOLERANCE_PERCENT, Integer::valueOf).orElse(100);
+            this.contextToleranceMillis = context.getConfigurationParameter(CONTEXT_TOLERANCE_MILLIS, Long::valueOf)
+                    .orElse(DEFAULT_CONTEXT_TOLERANCE_MILLIS);
+            boolean useIndex = context.getConfigurationParameter(ContextGroupingClassOrderer.USE_INDEX)
+                    .map(Boolean::parseBoolean).orElse(true);
+            this.index = useIndex ? TestIndex.bundled() : null;
+            load(baseline);
+        }
+
+        private void load(Properties properties) {
+            if (Files.exists(file)) {
+                try (Reader reader = Files.newBufferedReader(file)) {
+                    properties.load(reader);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not read baseline " + file, e);
+                }
+            }
+        }
+
+        /**
+         * Whether the class also ran first when the baseline was recorded, i.e. its baseline includes the warm-up.
+         */
+        boolean ranFirstInBaseline(Class<?> testClass) {
+            return mode == Mode.UPDATE || baseline.containsKey(profile + "." + testClass.getName() + ".ranFirst");
+        }
+
+        void recordRanFirst(String classKey, boolean ranFirst) {
+            if (mode != Mode.UPDATE) {
+                return;
+            }
+            String entry = profile + "." + classKey + ".ranFirst";
+            if (ranFirst) {
+                measured.put(entry, 1L);
+            } else {
+                notFirst.add(entry);
+            }
+        }
+
+        /**
+         * The group name from the test index; without one, the class itself, which only matches the baseline
+         * when the same class starts the context.
+         */
+        String contextGroup(Class<?> testClass) {
+            String group = index != null ? index.contextGroupName(testClass.getName()) : null;
+            return group != null ? group : testClass.getName();
+        }
+
+        /**
+         * @return why the context startup is over its tolerance, or {@code null} if it is within it, new, or being recorded
+         */
+        String checkContext(String group, long startupMillis) {
+            String entry = profile + ".context." + group + ".startupMillis";
+            if (mode == Mode.UPDATE) {
+                measured.put(entry, startupMillis);
+                return null;
+            }
+            String baselineMillis = baseline.getProperty(entry);
+            if (baselineMillis == null) {
+                return null;
+            }
+            long expected = Long.parseLong(baselineMillis);
+            long allowed = expected + Math.max(expected * contextTolerancePercent / 100, contextToleranceMillis);
+            return startupMillis > allowed ? String.format("context of %s started in %d ms, baseline %d ms, allowed %d ms",
+                    group, startupMillis, expected, allowed) : null;
+        }
+
+        /**
+         * @return why the measurement is over budget, or {@code null} if it is within budget, new, or being recorded
+         */
+        String check(String key, long wallMillis, long allocatedBytes, PerformanceBudget budget) {
+            String entry = profile + "." + key;
+            if (mode == Mode.UPDATE) {
+                measured.put(entry + ".wallMillis", wallMillis);
+                if (allocatedBytes >= 0) {
+                    measured.put(entry + ".allocatedBytes", allocatedBytes);
+                }
+                return null;
+            }
+            String baselineMillis = baseline.getProperty(entry + ".wallMillis");
+            if (baselineMillis != null) {
+                long expected = Long.parseLong(baselineMillis);
+                int percent = budget != null && budget.tolerancePercent() >= 0 ? budget.tolerancePercent() : tolerancePercent;
+                long millis = budget != null && budget.toleranceMillis() >= 0 ? budget.toleranceMillis() : toleranceMillis;
+                long allowed = expected + Math.max(expected * percent / 100, millis);
+                if (wallMillis > allowed) {
+                    return String.format("%s took %d ms, baseline %d ms, allowed %d ms", key, wallMillis, expected, allowed);
+                }
+            }
+            String baselineBytes = baseline.getProperty(entry + ".allocatedBytes");
+            if (baselineBytes != null && allocatedBytes >= 0) {
+                long expected = Long.parseLong(baselineBytes);
+                int percent = budget != null && budget.allocationTolerancePercent() >= 0
+                        ? budget.allocationTolerancePercent() : allocationTolerancePercent;
+                long allowed = expected + Math.max(expected * percent / 100, ALLOCATION_SLACK_BYTES);
+                if (allocatedBytes > allowed) {
+                    return String.format("%s allocated %.1f MB, baseline %.1f MB, allowed %.1f MB",
+                            key, allocatedBytes / 1e6, expected / 1e6, allowed / 1e6);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Writes the updated baseline, keeping entries of tests and profiles this run did not measure
+         * (e.g. other shards, or other forks of a profile matrix).
+         */
+        @Override
+        public void close() throws IOException {
+            if (mode != Mode.UPDATE) {
+                return;
+            }
+            // Re-read, so entries that other forks wrote since this run started survive
+            Properties updated = new Properties();
+            load(updated);
+            notFirst.forEach(updated::remove);
+            measured.forEach((key, value) -> updated.setProperty(key, Long.toString(value)));
+            StringWriter properties = new StringWriter();
+            updated.store(properties, null);
+            // Sorted, so that updating a checked-in baseline gives a readable diff
+            List<String> lines = new ArrayList<>(properties.toString().lines().filter(line -> !line.startsWith("#")).toList());
+            Collections.sort(lines);
+            lines.add(0, "# Fat tests performance baseline, written by --update-baseline");
+            // Forks of a profile matrix may update the same file at once; never leave it half written
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), "fat-tests-baseline", ".tmp");
+            Files.write(tmp, lines);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("Updated performance baseline " + file + " with " + measured.size() + " values");
+        }
+    }
+}
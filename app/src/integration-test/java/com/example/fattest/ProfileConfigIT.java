@@ -1,5 +1,6 @@
 package com.example.fattest;
 
+import org.apache.logging.log4j.LogManager;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,6 +47,22 @@ class ProfileConfigIT {
                 assertEquals("!!!", appConfig.getGreeting().getSuffix());
                 assertFalse(appConfig.getFeature().isEnabled());
             }
+            case "asynclog" -> {
+                assertEquals("asynclog", appConfig.getEnvironment());
+                assertEquals("Hello", appConfig.getGreeting().getPrefix());
+                assertEquals("!", appConfig.getGreeting().getSuffix());
+                assertTrue(appConfig.getFeature().isEnabled());
+                assertNotNull(AsyncLoggingMonitor.ringBuffer(), "asynclog should run with async loggers");
+                long enqueued = CountingAsyncQueueFullPolicy.getEnqueuedCount();
+                LogManager.getLogger(ProfileConfigIT.class).info("Counting async log events: {}", enqueued);
+                assertTrue(CountingAsyncQueueFullPolicy.getEnqueuedCount() > enqueued, "log event should be counted as enqueued");
+            }
+            case "reactive" -> {
+                assertEquals("reactive", appConfig.getEnvironment());
+                assertEquals("Hello", appConfig.getGreeting().getPrefix());
+                assertEquals("!", appConfig.getGreeting().getSuffix());
+                assertTrue(appConfig.getFeature().isEnabled());
+            }
             default -> {
                 assertEquals("default", appConfig.getEnvironment());
                 assertEquals("Hello", appConfig.getGreeting().getPrefix());
@@ -0,0 +1,255 @@
+package com.example.fattest;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Matrix mode of the tests jar: {@code --profiles default,dev3,dev4} runs the whole suite once per profile,
+ * each in its own JVM launched from the same jar, and merges the results. Up to {@code --forks N} profiles run
+ * at the same time, by default one per CPU: several suites sharing a core would break the latency bounds
+ * that tests such as {@code BulkheadIT} and {@code HedgingIT} assert.
+ * <p>
+ * Every fork gets the remaining arguments (e.g. {@code --threads 4}) plus {@code --profile <name>}; its output
+ * goes to a log file and its counts and failures come back through the {@code fattests.result-file} written by
+ * {@link TestRunner}. The exit code is 1 when any profile has a failure or its JVM died without results.
+ */
+public class ProfileMatrix {
+
+    static final String RESULT_FILE_PROPERTY = "fattests.result-file";
+
+    private static final String DEFAULT_PROFILE = "default";
+    private static final List<String> FORK_OWN_OPTIONS = List.of("--profiles", "--profile", "--forks", "--result-file", "--report-dir");
+
+    public static boolean isRequested(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--profiles") || arg.startsWith("--profiles=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the suite for every profile in {@code --profiles} and returns the process exit code.
+     */
+    public static int run(String[] args) {
+        List<String> profiles = parseProfiles(args);
+        if (profiles.isEmpty()) {
+            System.err.println("--profiles needs a comma-separated list of profiles, e.g. default,dev3,dev4");
+            return 2;
+        }
+        int forks;
+        try {
+            forks = Math.max(1, Math.min(profiles.size(),
+                    Args.intArg(args, "--forks", Runtime.getRuntime().availableProcessors())));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+
+        System.out.println("==========================================");
+        System.out.println("    Fat Tests - Profile Matrix");
+        System.out.println("==========================================");
+        System.out.println("Profiles: " + String.join(", ", profiles) + " (" + forks + " at a time)");
+
+        Path logDir;
+        try {
+            logDir = Files.createTempDirectory("fat-tests-matrix");
+        } catch (IOException e) {
+            System.err.println("Could not create a log directory: " + e.getMessage());
+            return 2;
+        }
+        System.out.println("Logs:     " + logDir);
+        System.out.println();
+
+        List<String> forkArgs = forkArgs(args);
+        String reportDir = Args.stringArg(args, "--report-dir", null);
+        Set<Process> running = ConcurrentHashMap.newKeySet();
+        Thread cleanup = new Thread(() -> running.forEach(Process::destroy));
+        Runtime.getRuntime().addShutdownHook(cleanup);
+
+        long start = System.nanoTime();
+        List<Result> results = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(forks);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (String profile : profiles) {
+                futures.add(pool.submit(() -> runFork(profile, forkArgs, logDir, reportDir, running)));
+            }
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 2;
+        } catch (ExecutionException e) {
+            System.err.println("Profile run failed: " + e.getCause());
+            return 2;
+        } finally {
+            pool.shutdownNow();
+        }
+        long wallNanos = System.nanoTime() - start;
+        Runtime.getRuntime().removeShutdownHook(cleanup);
+
+        return report(results, wallNanos);
+    }
+
+    private static int report(List<Result> results, long wallNanos) {
+        System.out.println();
+        System.out.println("==========================================");
+        System.out.println("          PROFILE MATRIX RESULTS");
+        System.out.println("==========================================");
+        System.out.printf("%-12s %8s %8s %8s %8s %10s%n", "profile", "found", "passed", "failed", "skipped", "time");
+
+        boolean failed = false;
+        long profileNanos = 0;
+        for (Result result : results) {
+            profileNanos += result.elapsedNanos();
+            if (result.run() == null) {
+                System.out.printf("%-12s %-35s %9.1fs%n", result.profile(),
+                        "exited with " + result.exitCode() + ", no results", result.elapsedNanos() / 1e9);
+                failed = true;
+                continue;
+            }
+            RunResult run = result.run();
+            System.out.printf("%-12s %8d %8d %8d %8d %9.1fs%n", result.profile(),
+                    run.found(), run.succeeded(), run.failed(), run.skipped(), result.elapsedNanos() / 1e9);
+            failed |= result.exitCode() != 0;
+        }
+
+        for (Result result : results) {
+            List<String> failures = result.run() != null ? result.run().failures() : List.of();
+            if (!failures.isEmpty()) {
+                System.out.println();
+                System.out.println("Failures in " + result.profile() + " (log: " + result.log() + "):");
+                failures.forEach(failure -> System.out.println("  - " + failure));
+            } else if (result.exitCode() != 0) {
+                System.out.println();
+                System.out.println(result.profile() + " failed, see " + result.log());
+            }
+        }
+
+        System.out.println();
+        System.out.printf("Wall clock: %.1f s (profiles took %.1f s in total, estimated speedup %.2fx)%n",
+                wallNanos / 1e9, profileNanos / 1e9, wallNanos > 0 ? (double) profileNanos / wallNanos : 0);
+        System.out.println("==========================================");
+        return failed ? 1 : 0;
+    }
+
+    static List<String> parseProfiles(String[] args) {
+        String value = Args.stringArg(args, "--profiles", null);
+        List<String> profiles = new ArrayList<>();
+        if (value != null) {
+            for (String profile : value.split(",")) {
+                if (!profile.isBlank() && !profiles.contains(profile.strip())) {
+                    profiles.add(profile.strip());
+                }
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * The arguments every fork shares: everything except the options that are decided per fork.
+     */
+    static List<String> forkArgs(String[] args) {
+        List<String> forkArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (FORK_OWN_OPTIONS.contains(arg)) {
+                if (Args.hasValueAfter(args, i)) {
+                    i++;
+                }
+            } else if (FORK_OWN_OPTIONS.stream().noneMatch(option -> arg.startsWith(option + "="))
+                    && !arg.startsWith("--spring.profiles.active=")) {
+                forkArgs.add(arg);
+            }
+        }
+        return forkArgs;
+    }
+
+    /**
+     * The command that starts this tests jar again, keeping the JVM options it was started with.
+     */
+    private static List<String> javaCommand(String... extraOptions) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // Each fork chooses its own profile, and two JVMs cannot share a debugger port
+            if (!option.startsWith("-Dspring.profiles.active=") && !option.startsWith("-D" + RESULT_FILE_PROPERTY + "=")
+                    && !option.startsWith("-agentlib:jdwp")) {
+                command.add(option);
+            }
+        }
+        command.addAll(Arrays.asList(extraOptions));
+        String classPath = System.getProperty("java.class.path");
+        if (classPath.endsWith(".jar") && !classPath.contains(File.pathSeparator)) {
+            command.addAll(Arrays.asList("-jar", classPath));
+        } else {
+            command.addAll(Arrays.asList("-cp", classPath, TestRunner.class.getName()));
+        }
+        return command;
+    }
+
+    /**
+     * Runs the suite for one profile in a new JVM and collects what it reported.
+     */
+    private static Result runFork(String profile, List<String> args, Path logDir, String reportDir, Set<Process> running)
+            throws InterruptedException {
+        Path log = logDir.resolve(profile + ".log");
+        Path resultFile = logDir.resolve(profile + ".properties");
+        List<String> command = javaCommand("-D" + RESULT_FILE_PROPERTY + "=" + resultFile);
+        command.addAll(args);
+        if (!DEFAULT_PROFILE.equals(profile)) {
+            command.addAll(Arrays.asList("--profile", profile));
+        }
+        if (reportDir != null) {
+            // One resource profile per fork instead of all of them writing the same files
+            command.addAll(Arrays.asList("--report-dir", Path.of(reportDir, profile).toString()));
+        }
+
+        long start = System.nanoTime();
+        int exitCode;
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            running.add(process);
+            try {
+                exitCode = process.waitFor();
+            } finally {
+                running.remove(process);
+                process.destroy();
+            }
+        } catch (IOException e) {
+            System.err.println("[" + profile + "] could not start: " + e.getMessage());
+            exitCode = -1;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        RunResult run = null;
+        try {
+            run = Files.exists(resultFile) ? RunResult.read(resultFile) : null;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("[" + profile + "] unreadable results: " + e.getMessage());
+        }
+        System.out.printf("[%s] finished in %.1f s with exit code %d%n", profile, elapsed / 1e9, exitCode);
+        return new Result(profile, exitCode, elapsed, run, log);
+    }
+
+    private record Result(String profile, int exitCode, long elapsedNanos, RunResult run, Path log) {
+    }
+}
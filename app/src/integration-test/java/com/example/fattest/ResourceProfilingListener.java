@@ -0,0 +1,212 @@
+package com.example.fattest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.platform.reporting.open.xml.OpenTestReportGeneratingListener;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records wall time, CPU time and allocated bytes of every test and container, and writes each as soon as it
+ * finishes: one line to {@value #JSONL_FILE} and, through the Open Test Reporting listener of
+ * junit-platform-reporting, a {@code reported} event in its streaming XML. Both go to the {@code --report-dir}.
+ * <p>
+ * CPU and allocation come from the thread MX bean and cover the thread that ran the node, so a class container
+ * includes its Spring context startup and, when run sequentially, its tests; with parallel execution, work its
+ * tests did on other threads is not included.
+ */
+public class ResourceProfilingListener implements TestExecutionListener {
+
+    static final String JSONL_FILE = "test-resources.jsonl";
+
+    private static final int SLOWEST = 5;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final boolean cpuTime;
+    private final boolean allocation;
+
+    private final Path reportDir;
+    private final OpenTestReportGeneratingListener openTestReport = new OpenTestReportGeneratingListener();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Snapshot> running = new ConcurrentHashMap<>();
+
+    // guarded by this
+    private BufferedWriter jsonl;
+    private final PriorityQueue<Usage> slowestTests = new PriorityQueue<>(Comparator.comparingLong(Usage::wallNanos));
+    private final PriorityQueue<Usage> slowestClasses = new PriorityQueue<>(Comparator.comparingLong(Usage::wallNanos));
+
+    public ResourceProfilingListener(Path reportDir) {
+        this.reportDir = reportDir;
+        this.cpuTime = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+        this.allocation = threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+    }
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        try {
+            Files.createDirectories(reportDir);
+            synchronized (this) {
+                jsonl = Files.newBufferedWriter(reportDir.resolve(JSONL_FILE));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create " + reportDir.resolve(JSONL_FILE), e);
+        }
+        openTestReport.testPlanExecutionStarted(testPlan);
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        openTestReport.testPlanExecutionFinished(testPlan);
+        synchronized (this) {
+            try {
+                jsonl.close();
+            } catch (IOException e) {
+                System.err.println("Could not close " + JSONL_FILE + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void executionStarted(TestIdentifier testIdentifier) {
+        openTestReport.executionStarted(testIdentifier);
+        running.put(testIdentifier.getUniqueId(), snapshot());
+    }
+
+    @Override
+    public void executionSkipped(TestIdentifier testIdentifier, String reason) {
+        openTestReport.executionSkipped(testIdentifier, reason);
+        write(new Usage(testIdentifier, "SKIPPED", 0, -1, -1));
+    }
+
+    @Override
+    public void reportingEntryPublished(TestIdentifier testIdentifier, ReportEntry entry) {
+        openTestReport.reportingEntryPublished(testIdentifier, entry);
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+        Snapshot start = running.remove(testIdentifier.getUniqueId());
+        if (start != null) {
+            Snapshot end = snapshot();
+            // Thread counters are only comparable when the node finished on the thread it started on
+            boolean sameThread = start.threadId() == end.threadId();
+            Usage usage = new Usage(testIdentifier, testExecutionResult.getStatus().name(),
+                    end.wallNanos() - start.wallNanos(),
+                    sameThread && cpuTime ? end.cpuNanos() - start.cpuNanos() : -1,
+                    sameThread && allocation ? end.allocatedBytes() - start.allocatedBytes() : -1);
+            openTestReport.reportingEntryPublished(testIdentifier, ReportEntry.from(Map.of(
+                    "wallNanos", Long.toString(usage.wallNanos()),
+                    "cpuNanos", Long.toString(usage.cpuNanos()),
+                    "allocatedBytes", Long.toString(usage.allocatedBytes()))));
+            write(usage);
+        }
+        openTestReport.executionFinished(testIdentifier, testExecutionResult);
+    }
+
+    /**
+     * The slowest test classes and tests of the run, with their CPU time and allocations.
+     */
+    public synchronized String describe() {
+        StringBuilder report = new StringBuilder("Resource profile written to " + reportDir + System.lineSeparator());
+        describe(report, "Slowest test classes", slowestClasses);
+        describe(report, "Slowest tests", slowestTests);
+        return report.toString().stripTrailing();
+    }
+
+    private static void describe(StringBuilder report, String title, PriorityQueue<Usage> slowest) {
+        List<Usage> usages = new ArrayList<>(slowest);
+        usages.sort(Comparator.comparingLong(Usage::wallNanos).reversed());
+        report.append(title).append(':').append(System.lineSeparator());
+        for (Usage usage : usages) {
+            report.append(String.format("  %8.1f s wall %8.1f s cpu %10.1f MB  %s%n", usage.wallNanos() / 1e9,
+                    usage.cpuNanos() / 1e9, usage.allocatedBytes() / 1e6, usage.shortName()));
+        }
+    }
+
+    private synchronized void write(Usage usage) {
+        try {
+            jsonl.write(objectMapper.writeValueAsString(usage.toJson()));
+            jsonl.newLine();
+            jsonl.flush();
+        } catch (IOException e) {
+            System.err.println("Could not write " + JSONL_FILE + ": " + e.getMessage());
+        }
+        if (usage.type().equals("TEST") || usage.isClass()) {
+            PriorityQueue<Usage> slowest = usage.isClass() ? slowestClasses : slowestTests;
+            slowest.add(usage);
+            if (slowest.size() > SLOWEST) {
+                slowest.poll();
+            }
+        }
+    }
+
+    private Snapshot snapshot() {
+        return new Snapshot(Thread.currentThread().threadId(), System.nanoTime(),
+                cpuTime ? threads.getCurrentThreadCpuTime() : 0,
+                allocation ? threads.getCurrentThreadAllocatedBytes() : 0);
+    }
+
+    private record Snapshot(long threadId, long wallNanos, long cpuNanos, long allocatedBytes) {
+    }
+
+    /**
+     * What one test or container used; -1 where the counter is unavailable.
+     */
+    private record Usage(String id, String type, String name, String source, String status,
+                         long wallNanos, long cpuNanos, long allocatedBytes) {
+
+        Usage(TestIdentifier test, String status, long wallNanos, long cpuNanos, long allocatedBytes) {
+            this(test.getUniqueId(), test.getType().name(), test.getDisplayName(), source(test), status,
+                    wallNanos, cpuNanos, allocatedBytes);
+        }
+
+        String shortName() {
+            return source == null ? name : source.substring(source.lastIndexOf('.') + 1);
+        }
+
+        boolean isClass() {
+            return source != null && !source.contains("#");
+        }
+
+        Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", id);
+            json.put("type", type);
+            json.put("name", name);
+            json.put("source", source);
+            json.put("status", status);
+            json.put("wallNanos", wallNanos);
+            json.put("cpuNanos", cpuNanos);
+            json.put("allocatedBytes", allocatedBytes);
+            return json;
+        }
+
+        private static String source(TestIdentifier test) {
+            return test.getSource().map(source -> {
+                if (source instanceof MethodSource method) {
+                    return method.getClassName() + "#" + method.getMethodName();
+                }
+                return source instanceof ClassSource type ? type.getClassName() : null;
+            }).orElse(null);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.fattest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Keep the deliberate failures here from opening the breaker mid-test
+@TestPropertySource(properties = {
+        "app.upstream.breaker.window-size=100",
+        "app.upstream.breaker.minimum-calls=100"
+})
+class RetryIT extends BaseTest {
+
+    private static final String FIXTURES = "wiremock/mappings/exceptions/";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private UserLookupClient userLookupClient;
+
+    @Autowired
+    private PersonalizedGreetingService personalizedGreetingService;
+
+    @Autowired
+    private GreetingService greetingService;
+
+    @Test
+    @DisplayName("Should not retry when Retry-After of the rate-limited stub passes the deadline")
+    void shouldHonorLongRetryAfter() {
+        stubFromFixture("rate-limited.json", "/api/users/101");
+
+        long start = System.nanoTime();
+        UpstreamException error = assertThrows(UpstreamException.class,
+                () -> userLookupClient.lookup(101).block(Duration.ofSeconds(5)));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("Gave up on Retry-After " + error.getRetryAfter() + " after " + elapsedMs + " ms");
+        assertEquals(429, error.getStatus());
+        assertEquals(Duration.ofSeconds(60), error.getRetryAfter());
+        assertTrue(elapsedMs < 500, "Should give up at once, took " + elapsedMs + " ms");
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/api/users/101")));
+    }
+
+    @Test
+    @DisplayName("Should wait out a short Retry-After and then succeed")
+    void shouldRetryAfterShortWait() {
+        wireMockServer.stubFor(get(urlEqualTo("/api/users/102"))
+                .inScenario("maintenance").whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(503).withHeader("Retry-After", "1"))
+                .willSetStateTo("recovered"));
+        wireMockServer.stubFor(get(urlEqualTo("/api/users/102"))
+                .inScenario("maintenance").whenScenarioStateIs("recovered")
+                .willReturn(okJson("{\"id\": 102, \"name\": \"Patient\", \"email\": \"patient@example.com\"}")));
+
+        long start = System.nanoTime();
+        String greeting = personalizedGreetingService.greet(102, "Guest").block(Duration.ofSeconds(5));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("Recovered after " + elapsedMs + " ms");
+        assertEquals(greetingService.greet("Patient"), greeting);
+        assertTrue(elapsedMs >= 1000, "Should wait for Retry-After, took " + elapsedMs + " ms");
+        wireMockServer.verify(2, getRequestedFor(urlEqualTo("/api/users/102")));
+    }
+
+    @Test
+    @DisplayName("Should back off and stop after max attempts on the internal-server-error stub")
+    void shouldStopAfterMaxAttempts() {
+        stubFromFixture("internal-server-error.json", "/api/users/103");
+        long retriesBefore = userLookupClient.getRetryPolicy().getRetries();
+
+        UpstreamException error = assertThrows(UpstreamException.class,
+                () -> userLookupClient.lookup(103).block(Duration.ofSeconds(5)));
+
+        assertEquals(500, error.getStatus());
+        wireMockServer.verify(3, getRequestedFor(urlEqualTo("/api/users/103")));
+        assertEquals(2, userLookupClient.getRetryPolicy().getRetries() - retriesBefore);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"bad-request.json", "unauthorized.json", "forbidden.json"})
+    @DisplayName("Should never retry client errors")
+    void shouldNotRetryClientErrors(String fixture) {
+        stubFromFixture(fixture, "/api/users/104");
+
+        UpstreamException error = assertThrows(UpstreamException.class,
+                () -> userLookupClient.lookup(104).block(Duration.ofSeconds(5)));
+
+        assertTrue(error.getStatus() >= 400 && error.getStatus() < 500);
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/api/users/104")));
+    }
+
+    /**
+     * Serves the response of an existing exception mapping for a user lookup URL.
+     */
+    private void stubFromFixture(String fixture, String url) {
+        try {
+            ObjectNode mapping = (ObjectNode) MAPPER.readTree(TestResourceLoader.loadString(FIXTURES + fixture));
+            mapping.putObject("request").put("method", "GET").put("url", url);
+            mapping.put("priority", 1);
+            wireMockServer.addStubMapping(StubMapping.buildFrom(MAPPER.writeValueAsString(mapping)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot load fixture " + fixture, e);
+        }
+    }
+}
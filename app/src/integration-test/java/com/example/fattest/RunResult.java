@@ -0,0 +1,85 @@
+package com.example.fattest;
+
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Counts, failures and per-class durations of one test run, stored as a properties file so that
+ * {@link ProfileMatrix} and {@code --merge} can combine runs made in other JVMs or on other machines.
+ */
+public record RunResult(String label, long found, long succeeded, long failed, long skipped, long wallMillis,
+                        List<String> failures, Map<String, Long> classMillis) {
+
+    private static final String CLASS_PREFIX = "class.";
+    private static final String FAILURE_PREFIX = "failure.";
+
+    static RunResult of(String label, TestExecutionSummary summary, TestTimingListener timingListener) {
+        List<String> failures = new ArrayList<>();
+        for (TestExecutionSummary.Failure failure : summary.getFailures()) {
+            TestIdentifier test = failure.getTestIdentifier();
+            String name = test.getSource()
+                    .filter(MethodSource.class::isInstance)
+                    .map(source -> (MethodSource) source)
+                    .map(source -> source.getJavaClass().getSimpleName() + "." + source.getMethodName())
+                    .orElse(test.getDisplayName());
+            failures.add(name + ": " + failure.getException());
+        }
+        return new RunResult(label, summary.getTestsFoundCount(), summary.getTestsSucceededCount(),
+                summary.getTestsFailedCount(), summary.getTestsSkippedCount(),
+                timingListener.getWallNanos() / 1_000_000, failures, timingListener.getClassMillis());
+    }
+
+    static RunResult read(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        List<String> failures = new ArrayList<>();
+        for (int i = 0; properties.containsKey(FAILURE_PREFIX + i); i++) {
+            failures.add(properties.getProperty(FAILURE_PREFIX + i));
+        }
+        Map<String, Long> classMillis = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(CLASS_PREFIX)) {
+                classMillis.put(name.substring(CLASS_PREFIX.length()), Long.parseLong(properties.getProperty(name)));
+            }
+        }
+        return new RunResult(properties.getProperty("label", file.getFileName().toString()),
+                count(properties, "tests.found"), count(properties, "tests.succeeded"),
+                count(properties, "tests.failed"), count(properties, "tests.skipped"),
+                count(properties, "wall.millis"), failures, classMillis);
+    }
+
+    void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("label", label);
+        properties.setProperty("tests.found", Long.toString(found));
+        properties.setProperty("tests.succeeded", Long.toString(succeeded));
+        properties.setProperty("tests.failed", Long.toString(failed));
+        properties.setProperty("tests.skipped", Long.toString(skipped));
+        properties.setProperty("wall.millis", Long.toString(wallMillis));
+        for (int i = 0; i < failures.size(); i++) {
+            properties.setProperty(FAILURE_PREFIX + i, failures.get(i));
+        }
+        classMillis.forEach((name, millis) -> properties.setProperty(CLASS_PREFIX + name, Long.toString(millis)));
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, "Fat tests results");
+        }
+    }
+
+    private static long count(Properties properties, String name) {
+        return Long.parseLong(properties.getProperty(name, "0"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.fattest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time from process launch to the first successful /greet for the plain fat jar and
+ * the layout built by the {@code aot-cds} Maven profile.
+ * <p>
+ * Run with: {@code mvn -Paot-cds verify -DskipTests -Dstartup.runs=5}
+ */
+public class StartupComparison {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(90);
+
+    public static void main(String[] args) throws Exception {
+        int runs = Args.intArg(args, "--runs", 5);
+        int port = Args.intArg(args, "--port", 8097);
+        String plainJar = Args.stringArg(args, "--plain-jar", "target/fat-tests-app-1.0.0-SNAPSHOT.jar");
+        String aotJar = Args.stringArg(args, "--aot-cds-jar", "target/aot-cds/fat-tests-app-1.0.0-SNAPSHOT-aot.jar");
+        Path archive = Path.of(aotJar).resolveSibling("app.jsa");
+
+        System.out.println("==========================================");
+        System.out.println("  Time to first successful /greet");
+        System.out.println("==========================================");
+        System.out.println("Runs per variant:    " + runs);
+        System.out.println("CDS archive:         " + archive + (Files.exists(archive) ? "" : " (missing)"));
+        System.out.println();
+
+        List<String> results = new ArrayList<>();
+        results.add(measure("fat jar", runs, port, "-jar", plainJar));
+        results.add(measure("aot", runs, port, "-Dspring.aot.enabled=true", "-jar", aotJar));
+        results.add(measure("aot + cds", runs, port,
+                "-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true", "-jar", aotJar));
+
+        System.out.println();
+        System.out.printf("%-12s %10s %10s %10s%n", "variant", "min ms", "median ms", "max ms");
+        results.forEach(System.out::println);
+    }
+
+    private static String measure(String variant, int runs, int port, String... launchArgs) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/greet")).GET().build();
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(launchArgs));
+        command.add("--server.port=" + port);
+
+        long[] millis = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                awaitFirstGreeting(client, request, process, start);
+                millis[run] = (System.nanoTime() - start) / 1_000_000;
+                System.out.printf("%-12s run %d: %d ms%n", variant, run + 1, millis[run]);
+            } finally {
+                process.destroy();
+                if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+
+        Arrays.sort(millis);
+        return String.format("%-12s %10d %10d %10d", variant, millis[0], millis[runs / 2], millis[runs - 1]);
+    }
+
+    private static void awaitFirstGreeting(HttpClient client, HttpRequest request, Process process, long start)
+            throws InterruptedException {
+        while (System.nanoTime() - start < STARTUP_TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + " before serving /greet");
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No successful /greet within " + STARTUP_TIMEOUT);
+    }
+
+}
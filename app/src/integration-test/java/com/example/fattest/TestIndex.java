@@ -0,0 +1,171 @@
+package com.example.fattest;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+import org.junit.jupiter.api.Tag;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.test.context.MergedContextConfiguration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Test classes of the fat tests jar with their JUnit tags and Spring context group, written at build time so
+ * {@link TestRunner} does not have to scan the nested jar on every start.
+ * <p>
+ * The {@code process-classes} phase runs {@link #main} over {@code target/classes}; classes in the same context
+ * group have an equal merged context configuration, i.e. share one cached Spring context.
+ */
+public record TestIndex(Map<String, Entry> entries) {
+
+    static final String LOCATION = "META-INF/fat-tests/test-index.tsv";
+
+    private static final String NONE = "-";
+
+    record Entry(String className, Set<String> tags, Integer contextGroup) {
+    }
+
+    /**
+     * Writes the index of the test classes in {@code args[1]} (a classes directory) to {@code args[0]}.
+     */
+    public static void main(String[] args) throws IOException {
+        Path output = Path.of(args[0]);
+        long start = System.nanoTime();
+        TestIndex index = build(TestRunner.TEST_PACKAGE, args[1]);
+        Files.createDirectories(output.getParent());
+        try (Writer writer = Files.newBufferedWriter(output)) {
+            index.write(writer);
+        }
+        System.out.printf("Indexed %d test classes into %s in %d ms%n",
+                index.entries().size(), output, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    static TestIndex build(String packageName, String classesDirectory) {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        Map<MergedContextConfiguration, Integer> groups = new HashMap<>();
+        try (ScanResult scanResult = new ClassGraph()
+                .overrideClasspath(classesDirectory)
+                .acceptPackages(packageName)
+                .enableClassInfo()
+                .ignoreClassVisibility()
+                .scan()) {
+            for (ClassInfo classInfo : scanResult.getAllClasses()) {
+                if (!TestRunner.isTestClassName(classInfo.getName())) {
+                    continue;
+                }
+                Class<?> testClass;
+                try {
+                    testClass = Class.forName(classInfo.getName());
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException("Could not load " + classInfo.getName(), e);
+                }
+                MergedContextConfiguration key = ContextGroupingClassOrderer.contextKey(testClass);
+                Integer group = key == null ? null : groups.computeIfAbsent(key, k -> groups.size() + 1);
+                entries.put(testClass.getName(), new Entry(testClass.getName(), tags(testClass), group));
+            }
+        }
+        return new TestIndex(entries);
+    }
+
+    /**
+     * The index packaged with the running jar, or {@code null} if the build wrote none or it cannot be read.
+     */
+    static TestIndex bundled() {
+        try {
+            return load(Thread.currentThread().getContextClassLoader());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Ignoring test index: " + e.getMessage());
+            return null;
+        }
+    }
+
+    static TestIndex load(ClassLoader classLoader) throws IOException {
+        try (InputStream in = classLoader.getResourceAsStream(LOCATION)) {
+            if (in == null) {
+                return null;
+            }
+            Map<String, Entry> entries = new LinkedHashMap<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                if (columns.length != 3) {
+                    throw new IOException("Malformed index line: " + line);
+                }
+                Set<String> tags = new TreeSet<>();
+                if (!NONE.equals(columns[1])) {
+                    tags.addAll(List.of(columns[1].split(",")));
+                }
+                Integer group = NONE.equals(columns[2]) ? null : Integer.valueOf(columns[2]);
+                entries.put(columns[0], new Entry(columns[0], tags, group));
+            }
+            return new TestIndex(entries);
+        }
+    }
+
+    void write(Writer writer) throws IOException {
+        writer.write("# test class\tJUnit tags\tSpring context group\n");
+        for (Entry entry : entries.values()) {
+            writer.write(entry.className() + "\t"
+                    + (entry.tags().isEmpty() ? NONE : String.join(",", entry.tags())) + "\t"
+                    + (entry.contextGroup() == null ? NONE : entry.contextGroup()) + "\n");
+        }
+    }
+
+    /**
+     * Names the Spring context group of a test class after its first class in alphabetical order, which stays
+     * the same whichever classes of the group a run or shard includes.
+     *
+     * @return the group name, or {@code null} if the class is not indexed or has no Spring context
+     */
+    String contextGroupName(String className) {
+        Entry entry = entries.get(className);
+        if (entry == null || entry.contextGroup() == null) {
+            return null;
+        }
+        return entries.values().stream()
+                .filter(other -> entry.contextGroup().equals(other.contextGroup()))
+                .map(Entry::className)
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+    }
+
+    List<Class<?>> loadClasses() {
+        List<Class<?>> testClasses = new ArrayList<>();
+        for (String className : entries.keySet()) {
+            try {
+                testClasses.add(Class.forName(className));
+            } catch (ClassNotFoundException e) {
+                System.err.println("Could not load: " + className);
+            }
+        }
+        return testClasses;
+    }
+
+    private static Set<String> tags(Class<?> testClass) {
+        Set<String> tags = new TreeSet<>();
+        MergedAnnotations.from(testClass, MergedAnnotations.SearchStrategy.TYPE_HIERARCHY)
+                .stream(Tag.class)
+                .map(tag -> tag.getString(MergedAnnotation.VALUE))
+                .forEach(tags::add);
+        return tags;
+    }
+}
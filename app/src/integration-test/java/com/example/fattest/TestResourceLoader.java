@@ -11,12 +11,15 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Component
@@ -25,6 +28,8 @@ public class TestResourceLoader {
     private static final Logger logger = LogManager.getLogger(TestResourceLoader.class);
 
     private static Path tempDir;
+    // Each resource is extracted once: rewriting it would pull it from under a parallel test reading it
+    private static final Map<String, File> extracted = new ConcurrentHashMap<>();
 
     // ==================== File-based methods (requires extraction in fat jar) ====================
 
@@ -46,7 +51,17 @@ public class TestResourceLoader {
             return file;
         } catch (IOException e) {
             logger.debug("Resource not accessible as file, extracting to temp: {}", path);
-            return extractToTempFile(resource, path);
+            try {
+                return extracted.computeIfAbsent(path, key -> {
+                    try {
+                        return extractToTempFile(resource, key);
+                    } catch (IOException extractFailure) {
+                        throw new UncheckedIOException(extractFailure);
+                    }
+                });
+            } catch (UncheckedIOException extractFailure) {
+                throw extractFailure.getCause();
+            }
         }
     }
 
@@ -145,19 +160,25 @@ public class TestResourceLoader {
 
     // ==================== Helper methods ====================
 
-    private static File extractToTempFile(ClassPathResource resource, String originalPath) throws IOException {
+    private static synchronized Path tempDir() throws IOException {
         if (tempDir == null) {
             tempDir = Files.createTempDirectory("test-resources-");
             tempDir.toFile().deleteOnExit();
             logger.info("Created temp directory for resources: {}", tempDir);
         }
+        return tempDir;
+    }
 
-        Path targetPath = tempDir.resolve(originalPath);
+    private static File extractToTempFile(ClassPathResource resource, String originalPath) throws IOException {
+        Path targetPath = tempDir().resolve(originalPath);
         Files.createDirectories(targetPath.getParent());
 
+        // Copied next to the target and moved into place, so the file never exists half written
+        Path partial = Files.createTempFile(targetPath.getParent(), targetPath.getFileName().toString(), ".part");
         try (InputStream is = resource.getInputStream()) {
-            Files.copy(is, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(is, partial, StandardCopyOption.REPLACE_EXISTING);
         }
+        Files.move(partial, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
 
         File file = targetPath.toFile();
         file.deleteOnExit();
@@ -11,17 +11,60 @@ import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
 import org.junit.platform.launcher.core.LauncherFactory;
 import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
 import org.junit.platform.launcher.listeners.TestExecutionSummary;
+import org.junit.platform.reporting.open.xml.OpenTestReportGeneratingListener;
+import org.springframework.test.context.MergedContextConfiguration;
+import org.springframework.test.context.TestContextManager;
 
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class TestRunner {
 
-    private static final String TEST_PACKAGE = "com.example.fattest";
+    static final String TEST_PACKAGE = "com.example.fattest";
 
     public static void main(String[] args) {
+        if (LoadGenerator.isRequested(args)) {
+            System.exit(LoadGenerator.run(args));
+        }
+        if (ProfileMatrix.isRequested(args)) {
+            System.exit(ProfileMatrix.run(args));
+        }
+        if (TestShards.isMergeRequested(args)) {
+            System.exit(TestShards.merge(args));
+        }
+
         String profile = parseProfile(args);
+        int threads;
+        TestShards.Shard shard;
+        try {
+            threads = parseThreads(args);
+            String shardArg = Args.stringArg(args, "--shard", null);
+            shard = shardArg != null ? TestShards.Shard.parse(shardArg) : null;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        boolean warmContexts = Arrays.asList(args).contains("--warm-contexts");
+        boolean useIndex = !Arrays.asList(args).contains("--no-index");
+        String reportDir = Args.stringArg(args, "--report-dir", null);
+        Path baseline = Path.of(Args.stringArg(args, "--baseline", PerformanceGateExtension.DEFAULT_BASELINE));
+        // The gate only compares when asked to: a baseline file lying around must not fail a plain run
+        PerformanceGateExtension.Mode perfMode = Arrays.asList(args).contains("--update-baseline")
+                ? PerformanceGateExtension.Mode.UPDATE
+                : Args.has(args, "--baseline") ? (Arrays.asList(args).contains("--perf-warn-only")
+                        ? PerformanceGateExtension.Mode.WARN : PerformanceGateExtension.Mode.FAIL) : null;
+        Path timingsFile = Path.of(Args.stringArg(args, "--timings", TestShards.DEFAULT_TIMINGS));
+        String resultFile = Args.stringArg(args, "--result-file", System.getProperty(ProfileMatrix.RESULT_FILE_PROPERTY,
+                shard != null ? shard.defaultResultFile() : null));
 
         System.out.println("==========================================");
         System.out.println("       Fat Tests - Test Runner");
@@ -36,11 +79,17 @@ public class TestRunner {
         }
 
         System.out.println("Test package: " + TEST_PACKAGE);
+        if (threads != 0) {
+            System.out.println("Parallel execution: " + (threads > 0 ? threads + " threads" : "one thread per CPU"));
+        }
         System.out.println();
 
-        // Scan for test classes using ClassGraph (works with Spring Boot fat jars)
-        List<Class<?>> testClasses = scanTestClassesInPackage(TEST_PACKAGE);
-        System.out.println("Found " + testClasses.size() + " test classes in package:");
+        // The build indexes the test classes; scan with ClassGraph (works with Spring Boot fat jars) without one
+        long findStart = System.nanoTime();
+        TestIndex index = useIndex ? TestIndex.bundled() : null;
+        List<Class<?>> testClasses = index != null ? index.loadClasses() : scanTestClassesInPackage(TEST_PACKAGE);
+        System.out.printf("Found %d test classes %s in %d ms:%n", testClasses.size(),
+                index != null ? "in the test index" : "by scanning the package", (System.nanoTime() - findStart) / 1_000_000);
         testClasses.forEach(c -> System.out.println("  - " + c.getSimpleName()));
         System.out.println();
 
@@ -49,8 +98,26 @@ public class TestRunner {
             System.exit(1);
         }
 
+        if (shard != null) {
+            Map<String, Long> timings = TestShards.readTimings(timingsFile);
+            int all = testClasses.size();
+            testClasses = TestShards.select(testClasses, shard, timings);
+            System.out.println("Shard " + shard + ": " + testClasses.size() + " of " + all + " test classes, balanced by "
+                    + (timings.isEmpty() ? "class count (no " + timingsFile + " yet)" : "durations in " + timingsFile));
+            testClasses.forEach(c -> System.out.println("  - " + c.getSimpleName()));
+            System.out.println();
+        }
+
+        if (reportDir != null) {
+            // ResourceProfilingListener feeds its own Open Test Reporting listener; the auto-registered one would
+            // write a second events file without the resource data
+            System.setProperty("junit.platform.execution.listeners.deactivate",
+                    OpenTestReportGeneratingListener.class.getName());
+        }
         Launcher launcher = LauncherFactory.create();
         SummaryGeneratingListener listener = new SummaryGeneratingListener();
+        TestTimingListener timingListener = new TestTimingListener();
+        ResourceProfilingListener profilingListener = reportDir != null ? new ResourceProfilingListener(Path.of(reportDir)) : null;
 
         // Use selectPackage with the discovered classes
         LauncherDiscoveryRequestBuilder requestBuilder = LauncherDiscoveryRequestBuilder.request();
@@ -60,11 +127,34 @@ public class TestRunner {
             requestBuilder.selectors(DiscoverySelectors.selectClass(testClass));
         }
 
+        requestBuilder.configurationParameter("junit.jupiter.testclass.order.default",
+                ContextGroupingClassOrderer.class.getName());
+        requestBuilder.configurationParameter(ContextGroupingClassOrderer.USE_INDEX, Boolean.toString(useIndex));
+        if (threads != 0) {
+            configureParallelExecution(requestBuilder, threads);
+        }
+        if (perfMode != null) {
+            configurePerformanceGate(requestBuilder, baseline, perfMode, profile != null ? profile : "default",
+                    Args.stringArg(args, "--perf-tolerance", null), Args.stringArg(args, "--perf-tolerance-millis", null));
+        }
+        if (reportDir != null) {
+            requestBuilder
+                    .configurationParameter("junit.platform.reporting.open.xml.enabled", "true")
+                    .configurationParameter("junit.platform.reporting.output.dir", reportDir);
+        }
+
         LauncherDiscoveryRequest request = requestBuilder.build();
 
-        launcher.registerTestExecutionListeners(listener);
-        logTestPlan(launcher, request);
-        launcher.execute(request);
+        if (warmContexts) {
+            warmContexts(testClasses);
+        }
+
+        launcher.registerTestExecutionListeners(listener, timingListener);
+        if (profilingListener != null) {
+            launcher.registerTestExecutionListeners(profilingListener);
+        }
+        TestPlan testPlan = discoverTestPlan(launcher, request);
+        launcher.execute(testPlan);
 
         TestExecutionSummary summary = listener.getSummary();
 
@@ -83,17 +173,125 @@ public class TestRunner {
         System.out.println("Tests started:   " + summary.getTestsStartedCount());
         System.out.println("Tests succeeded: " + summary.getTestsSucceededCount());
         System.out.println("Tests failed:    " + summary.getTestsFailedCount());
+        if (summary.getContainersFailedCount() > 0) {
+            System.out.println("Classes failed:  " + summary.getContainersFailedCount());
+        }
         System.out.println("Tests skipped:   " + summary.getTestsSkippedCount());
+        System.out.println(timingListener.describe());
+        System.out.println(ContextCacheReportingListener.describe());
+        if (profilingListener != null) {
+            System.out.println(profilingListener.describe());
+        }
         System.out.println("==========================================");
 
+        // Forks of a profile matrix compete for the CPU and would overwrite each other's class times
+        if (shard == null && System.getProperty(ProfileMatrix.RESULT_FILE_PROPERTY) == null) {
+            TestShards.updateTimings(timingsFile, timingListener.getClassMillis());
+        }
+        if (resultFile != null) {
+            String label = (profile != null ? profile : "default") + (shard != null ? " " + shard : "");
+            try {
+                RunResult.of(label, summary, timingListener).write(Path.of(resultFile));
+            } catch (IOException e) {
+                System.err.println("Could not write results to " + resultFile + ": " + e.getMessage());
+            }
+        }
+
         // Exit with appropriate code (needed because WireMock/Spring threads keep JVM alive)
-        System.exit(summary.getTestsFailedCount() > 0 ? 1 : 0);
+        // Containers count too: a class over its performance budget, or whose context failed to start, fails in afterAll/beforeAll
+        System.exit(summary.getTotalFailureCount() > 0 ? 1 : 0);
+    }
+
+    /**
+     * Turns on {@link PerformanceGateExtension}, which JUnit picks up from {@code META-INF/services}.
+     */
+    private static void configurePerformanceGate(LauncherDiscoveryRequestBuilder requestBuilder, Path baseline,
+                                                 PerformanceGateExtension.Mode mode, String profile,
+                                                 String tolerancePercent, String toleranceMillis) {
+        if (mode == PerformanceGateExtension.Mode.UPDATE) {
+            System.out.println("Performance baseline: recording profile " + profile + " to " + baseline);
+        } else if (!Files.exists(baseline)) {
+            System.out.println("Performance gate: OFF, there is no " + baseline + " yet (record one with --update-baseline)");
+            return;
+        } else {
+            System.out.println("*** Performance gate: ON, " + (mode == PerformanceGateExtension.Mode.WARN ? "warning about" : "failing")
+                    + " tests slower than profile " + profile + " in " + baseline + " ***");
+        }
+        requestBuilder
+                .configurationParameter("junit.jupiter.extensions.autodetection.enabled", "true")
+                .configurationParameter(PerformanceGateExtension.BASELINE, baseline.toString())
+                .configurationParameter(PerformanceGateExtension.MODE, mode.name())
+                .configurationParameter(PerformanceGateExtension.PROFILE, profile);
+        if (tolerancePercent != null) {
+            requestBuilder.configurationParameter(PerformanceGateExtension.TOLERANCE_PERCENT, tolerancePercent);
+        }
+        if (toleranceMillis != null) {
+            requestBuilder.configurationParameter(PerformanceGateExtension.TOLERANCE_MILLIS, toleranceMillis);
+        }
+    }
+
+    /**
+     * Runs test classes, and the methods within them, concurrently. Classes sharing state declare it with
+     * {@code @ResourceLock} (e.g. the WireMock server of {@link BaseTest}); timing-sensitive ones are
+     * {@code @Isolated}.
+     *
+     * @param threads fixed pool size, or -1 for one thread per CPU
+     */
+    private static void configureParallelExecution(LauncherDiscoveryRequestBuilder requestBuilder, int threads) {
+        requestBuilder
+                .configurationParameter("junit.jupiter.execution.parallel.enabled", "true")
+                .configurationParameter("junit.jupiter.execution.parallel.mode.default", "concurrent")
+                .configurationParameter("junit.jupiter.execution.parallel.mode.classes.default", "concurrent");
+        if (threads > 0) {
+            requestBuilder
+                    .configurationParameter("junit.jupiter.execution.parallel.config.strategy", "fixed")
+                    .configurationParameter("junit.jupiter.execution.parallel.config.fixed.parallelism",
+                            Integer.toString(threads))
+                    .configurationParameter("junit.jupiter.execution.parallel.config.fixed.max-pool-size",
+                            Integer.toString(threads));
+        } else {
+            requestBuilder
+                    .configurationParameter("junit.jupiter.execution.parallel.config.strategy", "dynamic")
+                    .configurationParameter("junit.jupiter.execution.parallel.config.dynamic.factor", "1");
+        }
     }
 
-    private static void logTestPlan(Launcher launcher, LauncherDiscoveryRequest request) {
+    /**
+     * Starts the Spring context of every configuration group up front, so the first test of each group
+     * does not pay for it. Contexts are started one after another: Spring's context cache serializes
+     * loading anyway, and the test classes then find them as cache hits.
+     */
+    private static void warmContexts(List<Class<?>> testClasses) {
+        System.out.println("Warming up Spring contexts...");
+        Set<MergedContextConfiguration> started = new HashSet<>();
+        long start = System.nanoTime();
+        for (Class<?> testClass : testClasses) {
+            MergedContextConfiguration key = ContextGroupingClassOrderer.contextKey(testClass);
+            if (key == null || !started.add(key)) {
+                continue;
+            }
+            long contextStart = System.nanoTime();
+            try {
+                new TestContextManager(testClass).getTestContext().getApplicationContext();
+                ContextCacheReportingListener.record(key, testClass.getSimpleName() + " (warm-up)",
+                        System.nanoTime() - contextStart);
+            } catch (RuntimeException e) {
+                // The test class will fail on the same context and report it properly
+                System.err.println("Could not warm up context of " + testClass.getSimpleName() + ": " + e.getMessage());
+            }
+        }
+        System.out.printf("Warmed up %d contexts in %.1f s%n%n", started.size(), (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Discovers the test plan once; executing the plan rather than the request avoids a second discovery.
+     */
+    private static TestPlan discoverTestPlan(Launcher launcher, LauncherDiscoveryRequest request) {
+        long start = System.nanoTime();
         TestPlan testPlan = launcher.discover(request);
-        System.out.println("Test plan:");
+        System.out.printf("Test plan (discovered in %d ms):%n", (System.nanoTime() - start) / 1_000_000);
         testPlan.getRoots().forEach(root -> System.out.println("  - " + root.getDisplayName()));
+        return testPlan;
     }
 
     private static List<Class<?>> scanTestClassesInPackage(String packageName) {
@@ -108,7 +306,7 @@ public class TestRunner {
 
             for (ClassInfo classInfo : scanResult.getAllClasses()) {
                 String className = classInfo.getName();
-                if (className.endsWith("IT")) {
+                if (isTestClassName(className)) {
                     try {
                         testClasses.add(Class.forName(className));
                     } catch (ClassNotFoundException e) {
@@ -123,18 +321,18 @@ public class TestRunner {
         return testClasses;
     }
 
+    static boolean isTestClassName(String className) {
+        return className.endsWith("IT");
+    }
+
+    /**
+     * @return 0 for sequential execution, the thread count from {@code --threads N}, or -1 for {@code --parallel}
+     */
+    private static int parseThreads(String[] args) {
+        return Args.intArg(args, "--threads", Arrays.asList(args).contains("--parallel") ? -1 : 0);
+    }
+
     private static String parseProfile(String[] args) {
-        for (int i = 0; i < args.length; i++) {
-            if ("--profile".equals(args[i]) && i + 1 < args.length) {
-                return args[i + 1];
-            }
-            if (args[i].startsWith("--profile=")) {
-                return args[i].substring("--profile=".length());
-            }
-            if (args[i].startsWith("--spring.profiles.active=")) {
-                return args[i].substring("--spring.profiles.active=".length());
-            }
-        }
-        return null;
+        return Args.stringArg(args, "--profile", Args.stringArg(args, "--spring.profiles.active", null));
     }
 }
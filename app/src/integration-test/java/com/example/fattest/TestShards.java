@@ -0,0 +1,225 @@
+package com.example.fattest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Splits the suite across CI agents. {@code --shard 2/3} runs the second of three shards, balanced by the
+ * per-class durations in the timings file ({@code --timings}, default {@value #DEFAULT_TIMINGS}).
+ * The plan is deterministic, so agents that share the same timings file agree on it; classes without a
+ * recorded duration count as the median one, and with no history at all shards get an equal number of classes.
+ * Full runs update the timings file. Shard runs leave it alone, so a shard that finishes early cannot change
+ * the plan of one that has not started yet.
+ * <p>
+ * Each shard writes a result file. {@code --merge shard-1.properties shard-2.properties ...} combines them
+ * into one report and folds their durations into the timings file for the next split.
+ */
+public final class TestShards {
+
+    static final String DEFAULT_TIMINGS = "fat-tests-timings.properties";
+
+    private TestShards() {
+    }
+
+    record Shard(int index, int count) {
+
+        /**
+         * Parses {@code i/n}, with {@code i} counted from 1.
+         */
+        static Shard parse(String value) {
+            String[] parts = value.split("/");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected --shard i/n, got " + value);
+            }
+            int index;
+            int count;
+            try {
+                index = Integer.parseInt(parts[0].strip());
+                count = Integer.parseInt(parts[1].strip());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected --shard i/n, got " + value);
+            }
+            if (count < 1 || index < 1 || index > count) {
+                throw new IllegalArgumentException("Shard " + value + " is out of range");
+            }
+            return new Shard(index, count);
+        }
+
+        String defaultResultFile() {
+            return "fat-tests-shard-" + index + "-of-" + count + ".properties";
+        }
+
+        @Override
+        public String toString() {
+            return index + "/" + count;
+        }
+    }
+
+    /**
+     * The classes {@code shard} runs.
+     */
+    static List<Class<?>> select(List<Class<?>> testClasses, Shard shard, Map<String, Long> timings) {
+        return plan(testClasses, shard.count(), timings).get(shard.index() - 1);
+    }
+
+    /**
+     * Longest processing time first: the slowest class goes to the shard with the least work so far,
+     * which keeps the slowest shard within 4/3 of the best possible split.
+     */
+    static List<List<Class<?>>> plan(List<Class<?>> testClasses, int shards, Map<String, Long> timings) {
+        long unknown = median(timings.values());
+        List<Class<?>> bySlowest = new ArrayList<>(testClasses);
+        bySlowest.sort(Comparator.<Class<?>>comparingLong(c -> -timings.getOrDefault(c.getName(), unknown))
+                .thenComparing(Class::getName));
+
+        List<List<Class<?>>> plan = new ArrayList<>();
+        long[] load = new long[shards];
+        PriorityQueue<Integer> leastLoaded = new PriorityQueue<>(
+                Comparator.<Integer>comparingLong(i -> load[i]).thenComparingInt(i -> i));
+        for (int i = 0; i < shards; i++) {
+            plan.add(new ArrayList<>());
+            leastLoaded.add(i);
+        }
+        for (Class<?> testClass : bySlowest) {
+            int shard = leastLoaded.poll();
+            plan.get(shard).add(testClass);
+            load[shard] += Math.max(1, timings.getOrDefault(testClass.getName(), unknown));
+            leastLoaded.add(shard);
+        }
+        // Back to discovery order within a shard, so context grouping still applies
+        plan.forEach(classes -> classes.sort(Comparator.comparingInt(testClasses::indexOf)));
+        return plan;
+    }
+
+    static Map<String, Long> readTimings(Path file) {
+        Map<String, Long> timings = new TreeMap<>();
+        if (!Files.exists(file)) {
+            return timings;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+            properties.stringPropertyNames().forEach(name -> timings.put(name, Long.parseLong(properties.getProperty(name))));
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Ignoring unreadable timings file " + file + ": " + e.getMessage());
+            timings.clear();
+        }
+        return timings;
+    }
+
+    /**
+     * Replaces the recorded durations of the given classes and keeps the others.
+     */
+    static void updateTimings(Path file, Map<String, Long> classMillis) {
+        if (classMillis.isEmpty()) {
+            return;
+        }
+        Map<String, Long> timings = readTimings(file);
+        timings.putAll(classMillis);
+        Properties properties = new Properties();
+        timings.forEach((name, millis) -> properties.setProperty(name, Long.toString(millis)));
+        try {
+            // Forked runs may update the same file at once; never leave it half written
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), "fat-tests-timings", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp)) {
+                properties.store(writer, "Test class durations in milliseconds, used to balance --shard");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not update timings file " + file + ": " + e.getMessage());
+        }
+    }
+
+    public static boolean isMergeRequested(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--merge")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Combines the shard result files named after {@code --merge} and returns the process exit code.
+     */
+    public static int merge(String[] args) {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--merge".equals(args[i])) {
+                for (int j = i + 1; j < args.length && !args[j].startsWith("--"); j++) {
+                    files.add(Path.of(args[j]));
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("--merge needs the result files of the shards");
+            return 2;
+        }
+
+        List<RunResult> results = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                results.add(RunResult.read(file));
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Could not read " + file + ": " + e.getMessage());
+                return 2;
+            }
+        }
+
+        System.out.println("==========================================");
+        System.out.println("          MERGED TEST RESULTS");
+        System.out.println("==========================================");
+        System.out.printf("%-16s %8s %8s %8s %8s %10s%n", "run", "found", "passed", "failed", "skipped", "time");
+        long found = 0;
+        long succeeded = 0;
+        long failed = 0;
+        long skipped = 0;
+        long slowest = 0;
+        Map<String, Long> classMillis = new TreeMap<>();
+        for (RunResult result : results) {
+            System.out.printf("%-16s %8d %8d %8d %8d %9.1fs%n", result.label(), result.found(), result.succeeded(),
+                    result.failed(), result.skipped(), result.wallMillis() / 1e3);
+            found += result.found();
+            succeeded += result.succeeded();
+            failed += result.failed();
+            skipped += result.skipped();
+            slowest = Math.max(slowest, result.wallMillis());
+            classMillis.putAll(result.classMillis());
+        }
+        System.out.printf("%-16s %8d %8d %8d %8d %9.1fs%n", "total", found, succeeded, failed, skipped, slowest / 1e3);
+
+        for (RunResult result : results) {
+            if (!result.failures().isEmpty()) {
+                System.out.println();
+                System.out.println("Failures in " + result.label() + ":");
+                result.failures().forEach(failure -> System.out.println("  - " + failure));
+            }
+        }
+        System.out.println("==========================================");
+
+        updateTimings(Path.of(Args.stringArg(args, "--timings", DEFAULT_TIMINGS)), classMillis);
+        // Failures also lists failed classes (e.g. over their performance budget), which the counts do not
+        return results.stream().anyMatch(result -> !result.failures().isEmpty()) ? 1 : 0;
+    }
+
+    private static long median(Iterable<Long> values) {
+        List<Long> sorted = new ArrayList<>();
+        values.forEach(sorted::add);
+        if (sorted.isEmpty()) {
+            return 1;
+        }
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.fattest;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the wall-clock time of a test run and how long each test class took, so a parallel run
+ * can report its speedup over running the same classes one after another. Also records how long
+ * the JVM took to reach the first test, which is what runner startup work delays.
+ */
+public class TestTimingListener implements TestExecutionListener {
+
+    private final Map<String, Long> classStarts = new ConcurrentHashMap<>();
+    private final LongAdder classNanos = new LongAdder();
+    private final Map<String, Long> classMillis = new ConcurrentHashMap<>();
+    private volatile long planStart;
+    private volatile long wallNanos;
+    private volatile long firstClassMillis = -1;
+    private volatile long firstTestMillis = -1;
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        planStart = System.nanoTime();
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        wallNanos = System.nanoTime() - planStart;
+    }
+
+    @Override
+    public void executionStarted(TestIdentifier testIdentifier) {
+        if (testIdentifier.isTest() && firstTestMillis < 0) {
+            firstTestMillis = sinceJvmStart();
+        }
+        if (isClass(testIdentifier)) {
+            if (firstClassMillis < 0) {
+                firstClassMillis = sinceJvmStart();
+            }
+            classStarts.put(testIdentifier.getUniqueId(), System.nanoTime());
+        }
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+        Long start = isClass(testIdentifier) ? classStarts.remove(testIdentifier.getUniqueId()) : null;
+        if (start != null) {
+            long nanos = System.nanoTime() - start;
+            classNanos.add(nanos);
+            testIdentifier.getSource()
+                    .map(source -> ((ClassSource) source).getClassName())
+                    .ifPresent(className -> classMillis.put(className, nanos / 1_000_000));
+        }
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Sum of the time each test class took, roughly what a sequential run would need.
+     */
+    public long getClassNanos() {
+        return classNanos.sum();
+    }
+
+    /**
+     * How long each test class took in milliseconds, by class name.
+     */
+    public Map<String, Long> getClassMillis() {
+        return new TreeMap<>(classMillis);
+    }
+
+    /**
+     * Time from JVM start until the first test method started, or -1 if none ran. Includes starting the
+     * first Spring context; {@link #getFirstClassMillis()} is the part spent before that.
+     */
+    public long getFirstTestMillis() {
+        return firstTestMillis;
+    }
+
+    /**
+     * Time from JVM start until the first test class started, or -1 if none ran.
+     */
+    public long getFirstClassMillis() {
+        return firstClassMillis;
+    }
+
+    public String describe() {
+        double wall = wallNanos / 1e9;
+        double classes = getClassNanos() / 1e9;
+        return String.format("Wall clock: %.1f s (test classes took %.1f s in total, estimated speedup %.2fx)%n"
+                        + "First test class started %.2f s and first test %.2f s after JVM start",
+                wall, classes, wall > 0 ? classes / wall : 0, firstClassMillis / 1e3, firstTestMillis / 1e3);
+    }
+
+    private static long sinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    private static boolean isClass(TestIdentifier testIdentifier) {
+        return testIdentifier.getSource().filter(ClassSource.class::isInstance).isPresent();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.fattest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares /greet throughput and latency with platform vs virtual request threads
+ * while every request blocks on a simulated slow downstream call.
+ * <p>
+ * Run with: {@code mvn -q compile exec:java -Dexec.mainClass=com.example.fattest.ThreadModeComparison
+ * -Dexec.args="--concurrency 400 --downstream-ms 200 --duration-s 15"}
+ */
+public class ThreadModeComparison {
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Args.intArg(args, "--concurrency", 400);
+        long downstreamMs = Args.intArg(args, "--downstream-ms", 200);
+        int durationSeconds = Args.intArg(args, "--duration-s", 15);
+
+        System.out.println("==========================================");
+        System.out.println("  /greet: platform vs virtual threads");
+        System.out.println("==========================================");
+        System.out.println("Client concurrency:  " + concurrency);
+        System.out.println("Downstream latency:  " + downstreamMs + " ms (blocking)");
+        System.out.println("Duration per mode:   " + durationSeconds + " s");
+        System.out.println();
+
+        List<String> results = new ArrayList<>();
+        for (AppConfig.ThreadMode mode : AppConfig.ThreadMode.values()) {
+            results.add(run(mode, concurrency, downstreamMs, durationSeconds));
+        }
+
+        System.out.println();
+        System.out.printf("%-10s %12s %10s %10s %10s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms");
+        results.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private static String run(AppConfig.ThreadMode mode, int concurrency, long downstreamMs, int durationSeconds)
+            throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FatTestsApplication.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx).registerBean(
+                        BlockingDownstreamFilter.class, () -> new BlockingDownstreamFilter(downstreamMs)))
+                // Command-line args, since default properties lose to application.yml
+                .run("--server.port=0", "--app.admission.enabled=false",
+                        "--app.runtime.threads=" + mode.name().toLowerCase())) {
+
+            // Guards against the override being shadowed again, which made both runs measure platform threads
+            WebServer webServer = ((WebServerApplicationContext) context).getWebServer();
+            boolean virtual = ((TomcatWebServer) webServer).getTomcat().getConnector().getProtocolHandler()
+                    .getExecutor() instanceof VirtualThreadExecutor;
+            if (virtual != (mode == AppConfig.ThreadMode.VIRTUAL)) {
+                throw new IllegalStateException("Asked for " + mode + " request threads but Tomcat did not apply it");
+            }
+
+            int port = webServer.getPort();
+            URI uri = URI.create("http://localhost:" + port + "/greet?name=Load");
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+
+            // Short warm-up so JIT and connection setup do not dominate the measured window
+            drive(client, uri, concurrency, System.nanoTime() + Duration.ofSeconds(2).toNanos());
+
+            long start = System.nanoTime();
+            long[] latencies = drive(client, uri, concurrency, start + Duration.ofSeconds(durationSeconds).toNanos());
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            return String.format("%-10s %12.1f %10.1f %10.1f %10.1f", mode.name().toLowerCase(),
+                    latencies.length / elapsedSeconds,
+                    percentile(latencies, 0.50) / 1e6,
+                    percentile(latencies, 0.99) / 1e6,
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    static long[] drive(HttpClient client, URI uri, int concurrency, long deadline) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        List<Future<long[]>> workers = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            if (count == samples.length) {
+                                samples = Arrays.copyOf(samples, count * 2);
+                            }
+                            samples[count++] = System.nanoTime() - sent;
+                        }
+                    }
+                    return Arrays.copyOf(samples, count);
+                }));
+            }
+        }
+
+        List<long[]> perWorker = new ArrayList<>();
+        int total = 0;
+        for (Future<long[]> worker : workers) {
+            long[] samples = worker.get();
+            perWorker.add(samples);
+            total += samples.length;
+        }
+
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] samples : perWorker) {
+            System.arraycopy(samples, 0, all, offset, samples.length);
+            offset += samples.length;
+        }
+        return all;
+    }
+
+    static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * Stands in for a slow upstream call made while handling /greet.
+     */
+    static class BlockingDownstreamFilter extends OncePerRequestFilter {
+
+        private final long delayMs;
+
+        BlockingDownstreamFilter(long delayMs) {
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException(e);
+            }
+            chain.doFilter(request, response);
+        }
+    }
+}
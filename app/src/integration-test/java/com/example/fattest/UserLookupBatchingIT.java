@@ -0,0 +1,83 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.Isolated;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Benchmark: runs alone so both timings see the same machine
+@Isolated
+class UserLookupBatchingIT extends BaseTest {
+
+    private static final int LOOKUPS = 2000;
+    private static final int CONCURRENCY = 40;
+    private static final int DISTINCT_USERS = 500;
+
+    @Autowired
+    private UserLookupClient userLookupClient;
+
+    @Autowired
+    private UserLookupBatcher userLookupBatcher;
+
+    @Test
+    @DisplayName("Should answer concurrent lookups from one call to the bulk stub")
+    void shouldBatchConcurrentLookups() {
+        List<Optional<UserProfile>> profiles = Flux.just(1L, 2L, 3L, 999L)
+                .flatMapSequential(id -> userLookupBatcher.lookup(id).map(Optional::of).defaultIfEmpty(Optional.empty()))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("Alice", profiles.get(0).orElseThrow().name());
+        assertEquals("Bob", profiles.get(1).orElseThrow().name());
+        assertEquals(3, profiles.get(2).orElseThrow().id());
+        assertTrue(profiles.get(3).isEmpty());
+        // Normally one bulk call; a slow machine may let a lookup miss the 2 ms window
+        wireMockServer.verify(moreThanOrExactly(1), getRequestedFor(urlPathEqualTo("/api/users")));
+        assertTrue(wireMockServer.getAllServeEvents().size() < 4, "Lookups should share upstream calls");
+    }
+
+    @Test
+    @DisplayName("Should cut upstream calls at high concurrency")
+    void shouldReduceUpstreamCalls() {
+        wireMockServer.stubFor(get(urlMatching("/api/users/[0-9]+")).atPriority(10).willReturn(notFound()));
+        userLookupClient.lookupAll(List.of(1L, 2L)).block(Duration.ofSeconds(5));
+
+        Result direct = run(userLookupClient::lookup);
+        Result batched = run(userLookupBatcher::lookup);
+
+        System.out.println("Direct:  " + direct);
+        System.out.println("Batched: " + batched);
+        assertEquals(direct.found(), batched.found());
+        assertTrue(batched.upstreamCalls() * 5 <= direct.upstreamCalls(),
+                "Batching should cut upstream calls at least five-fold: " + batched.upstreamCalls());
+    }
+
+    private Result run(LongFunction<Mono<UserProfile>> lookup) {
+        wireMockServer.resetRequests();
+        long start = System.nanoTime();
+        long found = Flux.range(0, LOOKUPS)
+                .flatMap(i -> lookup.apply(i % DISTINCT_USERS + 1).hasElement(), CONCURRENCY)
+                .filter(Boolean::booleanValue)
+                .count()
+                .block(Duration.ofSeconds(60));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return new Result(wireMockServer.getAllServeEvents().size(), found, elapsedMs);
+    }
+
+    private record Result(int upstreamCalls, long found, long elapsedMs) {
+        @Override
+        public String toString() {
+            return LOOKUPS + " lookups, " + upstreamCalls + " upstream calls, " + elapsedMs + " ms";
+        }
+    }
+}
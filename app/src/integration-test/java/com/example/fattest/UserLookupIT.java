@@ -0,0 +1,86 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserLookupIT extends BaseTest {
+
+    @Autowired
+    private UserLookupClient userLookupClient;
+
+    @Autowired
+    private PersonalizedGreetingService personalizedGreetingService;
+
+    @Autowired
+    private GreetingService greetingService;
+
+    @Test
+    @DisplayName("Should greet a user looked up from the user service stub")
+    void shouldGreetUserFromUpstream() {
+        UserProfile profile = userLookupClient.lookup(1).block(Duration.ofSeconds(5));
+        String greeting = personalizedGreetingService.greet(2, null).block(Duration.ofSeconds(5));
+
+        System.out.println("User 1: " + profile);
+        System.out.println("Greeting for user 2: " + greeting);
+        assertEquals(new UserProfile(1, "Alice", "alice@example.com"), profile);
+        assertEquals(greetingService.greet("Bob"), greeting);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the plain greeting for an unknown user")
+    void shouldUsePlainGreetingForUnknownUser() {
+        String greeting = personalizedGreetingService.greet(0, "Guest").block(Duration.ofSeconds(5));
+
+        assertEquals(greetingService.greet("Guest"), greeting);
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/api/users/0")));
+    }
+
+    @Test
+    @DisplayName("Should fail fast when the user service is slower than the read timeout")
+    void shouldEnforceReadTimeout() {
+        wireMockServer.stubFor(get(urlEqualTo("/api/users/42"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"id\": 42, \"name\": \"Slow\", \"email\": \"slow@example.com\"}")
+                        .withFixedDelay(5000)));
+
+        long start = System.nanoTime();
+        assertThrows(RuntimeException.class, () -> userLookupClient.lookup(42).block(Duration.ofSeconds(10)));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.println("Timed out after " + elapsedMs + " ms");
+        assertTrue(elapsedMs < 3000, "Read timeout should cut the call short, took " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Should report upstream error statuses")
+    void shouldReportUpstreamErrors() {
+        wireMockServer.stubFor(get(urlEqualTo("/api/users/77")).willReturn(aResponse().withStatus(500)));
+
+        UpstreamException error = assertThrows(UpstreamException.class,
+                () -> userLookupClient.lookup(77).block(Duration.ofSeconds(5)));
+
+        assertEquals(500, error.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should serve concurrent lookups over the pooled client")
+    void shouldServeConcurrentLookups() {
+        List<UserProfile> profiles = Flux.range(0, 100)
+                .flatMap(i -> userLookupClient.lookup(i % 5 + 1), 32)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(100, profiles.size());
+        wireMockServer.verify(100, getRequestedFor(urlMatching("/api/users/[1-5]")));
+    }
+}
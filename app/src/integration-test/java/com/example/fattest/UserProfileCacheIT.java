@@ -0,0 +1,76 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserProfileCacheIT extends BaseTest {
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private PersonalizedGreetingService personalizedGreetingService;
+
+    @Autowired
+    private GreetingService greetingService;
+
+    @BeforeEach
+    @AfterEach
+    void forgetUsers() {
+        userProfileCache.invalidate(0);
+        userProfileCache.invalidate(301);
+    }
+
+    @Test
+    @DisplayName("Should make one upstream call for many concurrent misses on the same user")
+    void shouldCoalesceConcurrentMisses() {
+        wireMockServer.stubFor(get(urlEqualTo("/api/users/301"))
+                .willReturn(okJson("{\"id\": 301, \"name\": \"Hot\", \"email\": \"hot@example.com\"}")
+                        .withFixedDelay(200)));
+
+        List<String> greetings = Flux.range(0, 50)
+                .flatMap(i -> personalizedGreetingService.greet(301, null))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(50, greetings.size());
+        greetings.forEach(greeting -> assertEquals(greetingService.greet("Hot"), greeting));
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/api/users/301")));
+
+        // Later lookups are served from the cache
+        assertEquals(greetingService.greet("Hot"), personalizedGreetingService.greet(301, null).block());
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/api/users/301")));
+    }
+
+    @Test
+    @DisplayName("Should remember users the not-found stub does not know")
+    void shouldCacheNotFound() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(greetingService.greet("Guest"), personalizedGreetingService.greet(0, "Guest").block());
+        }
+
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/api/users/0")));
+    }
+
+    @Test
+    @DisplayName("Should not cache failed lookups")
+    void shouldNotCacheFailures() {
+        wireMockServer.stubFor(get(urlEqualTo("/api/users/301")).willReturn(aResponse().withStatus(400)));
+        assertEquals(greetingService.greet("Guest"), personalizedGreetingService.greet(301, "Guest").block());
+
+        wireMockServer.stubFor(get(urlEqualTo("/api/users/301"))
+                .willReturn(okJson("{\"id\": 301, \"name\": \"Back\", \"email\": \"back@example.com\"}")));
+        assertEquals(greetingService.greet("Back"), personalizedGreetingService.greet(301, "Guest").block());
+        wireMockServer.verify(2, getRequestedFor(urlEqualTo("/api/users/301")));
+    }
+}
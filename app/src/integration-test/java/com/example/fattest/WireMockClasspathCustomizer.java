@@ -7,13 +7,16 @@ import io.github.classgraph.Resource;
 import io.github.classgraph.ScanResult;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
+// The application jar is packaged without WireMock; only the tests jar needs this bean
 @Component
+@ConditionalOnClass(name = "com.github.tomakehurst.wiremock.WireMockServer")
 public class WireMockClasspathCustomizer {
 
     private static final Logger logger = LogManager.getLogger(WireMockClasspathCustomizer.class);
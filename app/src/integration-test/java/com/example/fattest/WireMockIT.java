@@ -91,6 +91,8 @@ class WireMockIT extends BaseTest {
 
     @Test
     @DisplayName("Should mock delayed response")
+    // Mostly the fixed 500 ms delay, which a percentage would only inflate: allow at most the delay again
+    @PerformanceBudget(tolerancePercent = 0, toleranceMillis = 500)
     void shouldMockDelayedResponse() {
         wireMockServer.stubFor(get(urlEqualTo("/api/slow"))
                 .willReturn(aResponse()
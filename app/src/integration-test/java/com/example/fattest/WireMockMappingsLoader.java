@@ -4,12 +4,15 @@ import com.github.tomakehurst.wiremock.WireMockServer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+// The application jar is packaged without WireMock; only the tests jar needs this bean
 @Component
+@ConditionalOnClass(name = "com.github.tomakehurst.wiremock.WireMockServer")
 public class WireMockMappingsLoader {
 
     private static final Logger logger = LogManager.getLogger(WireMockMappingsLoader.class);
@@ -0,0 +1,38 @@
+package com.example.fattest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CSV reading used by {@link CsvDataIT}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvParsingBenchmark {
+
+    @Param({"data/users.csv", "data/products.csv"})
+    public String resource;
+
+    private File file;
+
+    @Setup
+    public void setUp() throws Exception {
+        file = TestResourceLoader.loadFile(resource);
+    }
+
+    @Benchmark
+    public List<String[]> loadCsvFromFile() throws Exception {
+        return CsvDataIT.loadCsvFromFile(file);
+    }
+}
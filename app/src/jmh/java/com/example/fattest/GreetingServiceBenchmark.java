@@ -0,0 +1,50 @@
+package com.example.fattest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GreetingServiceBenchmark {
+
+    private GreetingService greetingService;
+    private GreetingResponseCache responseCache;
+    private final OutputStream sink = OutputStream.nullOutputStream();
+
+    @Setup
+    public void setUp() {
+        AppConfig appConfig = new AppConfig();
+        greetingService = new GreetingService(appConfig);
+        responseCache = new GreetingResponseCache(greetingService, appConfig);
+    }
+
+    @Benchmark
+    public String greetNamed() {
+        return greetingService.greet("Alice");
+    }
+
+    @Benchmark
+    public String greetBlank() {
+        return greetingService.greet("   ");
+    }
+
+    @Benchmark
+    public void writeGreetingNamed() throws IOException {
+        greetingService.writeGreeting("Alice", sink);
+    }
+
+    @Benchmark
+    public GreetingResponseCache.CachedGreeting cachedGreetingNamed() {
+        return responseCache.get("Alice");
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.fattest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-request metrics recording done by {@link RequestMetricsFilter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LatencyHistogramBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+
+    @Benchmark
+    public void record() {
+        histogram.record(System.nanoTime() & 0xFFFFFF);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        histogram.record(System.nanoTime() & 0xFFFFFF);
+    }
+
+    @Benchmark
+    public void recordRequest() {
+        requestMetrics.record("/greet", 200, System.nanoTime() & 0xFFFFFF);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.fattest;
+
+import com.github.tomakehurst.wiremock.stubbing.StubMapping;
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.Resource;
+import io.github.classgraph.ScanResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WireMock mapping loading as done by {@link BaseTest} before every test and once by
+ * {@link WireMockClasspathCustomizer}: the full classpath scan, and the JSON parsing on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StubMappingBenchmark {
+
+    private static final String MAPPINGS_PATH = "wiremock/mappings";
+
+    private List<String> mappingJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        mappingJson = new ArrayList<>();
+        try (ScanResult scanResult = new ClassGraph().acceptPaths(MAPPINGS_PATH).scan()) {
+            for (Resource resource : scanResult.getResourcesWithExtension("json")) {
+                mappingJson.add(new String(resource.load(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Benchmark
+    public void buildFrom(Blackhole blackhole) {
+        for (String json : mappingJson) {
+            blackhole.consume(StubMapping.buildFrom(json));
+        }
+    }
+
+    @Benchmark
+    public void scanAndBuildFrom(Blackhole blackhole) throws IOException {
+        try (ScanResult scanResult = new ClassGraph().acceptPaths(MAPPINGS_PATH).scan()) {
+            for (Resource resource : scanResult.getResourcesWithExtension("json")) {
+                blackhole.consume(StubMapping.buildFrom(new String(resource.load(), StandardCharsets.UTF_8)));
+            }
+        }
+    }
+}
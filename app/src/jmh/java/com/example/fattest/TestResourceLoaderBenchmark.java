@@ -0,0 +1,80 @@
+package com.example.fattest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.loader.net.protocol.Handlers;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TestResourceLoader} reading from the exploded classes directory and from
+ * {@code BOOT-INF/classes} inside the packaged tests jar (the way {@code java -jar} sees it).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TestResourceLoaderBenchmark {
+
+    private static final String RESOURCE = "data/users.csv";
+
+    @Param({"directory", "fatjar"})
+    public String source;
+
+    private ClassLoader originalClassLoader;
+    private URLClassLoader jarClassLoader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        originalClassLoader = Thread.currentThread().getContextClassLoader();
+        if ("fatjar".equals(source)) {
+            Path jar = Path.of(System.getProperty("fattests.jar", "target/fat-tests-app-1.0.0-SNAPSHOT-tests.jar"));
+            if (!Files.exists(jar)) {
+                throw new IllegalStateException("Tests jar not found, run 'mvn -Pjmh verify': " + jar.toAbsolutePath());
+            }
+            Handlers.register();
+            URL classes = URI.create("jar:nested:" + jar.toAbsolutePath() + "/!BOOT-INF/classes/!/").toURL();
+            jarClassLoader = new URLClassLoader(new URL[]{classes}, null);
+            // TestResourceLoader resolves ClassPathResources through the context class loader
+            Thread.currentThread().setContextClassLoader(jarClassLoader);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+        if (jarClassLoader != null) {
+            jarClassLoader.close();
+        }
+    }
+
+    @Benchmark
+    public byte[] loadBytes() throws IOException {
+        return TestResourceLoader.loadBytes(RESOURCE);
+    }
+
+    @Benchmark
+    public List<String> loadLines() throws IOException {
+        return TestResourceLoader.loadLines(RESOURCE);
+    }
+
+    @Benchmark
+    public File loadFile() throws IOException {
+        return TestResourceLoader.loadFile(RESOURCE);
+    }
+}
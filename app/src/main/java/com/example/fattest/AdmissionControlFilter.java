@@ -0,0 +1,162 @@
+package com.example.fattest;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sheds requests before they reach a handler: first per client with {@link StripedRateLimiter},
+ * then globally once {@code app.admission.max-concurrent} requests are in flight.
+ * Rejected requests get a 429 with {@code Retry-After}, shaped like the {@code rate-limited.json} stub.
+ * <p>
+ * Clients are identified by remote address. Only behind a proxy or gateway that sets a client id header
+ * (and strips it from callers) should {@code app.admission.trusted-client-header} name it; otherwise a
+ * client could reset its limit by sending a new header value with each request.
+ * {@code /metrics} is never shed.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionControlFilter extends OncePerRequestFilter implements MetricsContributor {
+
+    private static final Logger logger = LogManager.getLogger(AdmissionControlFilter.class);
+
+    private static final byte[] RATE_LIMITED_BODY = ("{\"error\":\"Too Many Requests\","
+            + "\"message\":\"Rate limit exceeded. Try again later.\",\"code\":\"RATE_LIMITED\"}")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OVERLOADED_BODY = ("{\"error\":\"Too Many Requests\","
+            + "\"message\":\"Server is at capacity. Try again later.\",\"code\":\"OVERLOADED\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final boolean enabled;
+    private final String clientHeader;
+    private final int maxConcurrent;
+    private final StripedRateLimiter rateLimiter;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder overloaded = new LongAdder();
+
+    public AdmissionControlFilter(AppConfig appConfig) {
+        AppConfig.Admission settings = appConfig.getAdmission();
+        this.enabled = settings.isEnabled();
+        this.clientHeader = settings.getTrustedClientHeader();
+        this.maxConcurrent = settings.getMaxConcurrent();
+        this.rateLimiter = new StripedRateLimiter(settings.getRatePerClient(), settings.getBurst(), settings.getStripes());
+        if (enabled) {
+            logger.info("Admission control: {} req/s per client (burst {}), {} concurrent requests",
+                    settings.getRatePerClient(), settings.getBurst(), maxConcurrent);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "/metrics".equals(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = clientOf(request);
+        long waitNanos = rateLimiter.tryAcquire(client);
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            rejectRateLimited(response, client, waitNanos);
+            return;
+        }
+
+        if (inFlight.incrementAndGet() > maxConcurrent) {
+            inFlight.decrementAndGet();
+            overloaded.increment();
+            reject(response, 1, OVERLOADED_BODY);
+            return;
+        }
+
+        admitted.increment();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseListener());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void writeMetrics(PrometheusTextWriter writer) {
+        writer.counter("http_admission_admitted_total", "Requests admitted by admission control", admitted.sum());
+        writer.counter("http_admission_shed_total", "Requests rejected with 429 by admission control",
+                rateLimited.sum(), "reason", "rate_limit");
+        writer.counter("http_admission_shed_total", "Requests rejected with 429 by admission control",
+                overloaded.sum(), "reason", "concurrency");
+        writer.gauge("http_admission_in_flight", "Admitted requests still being handled", inFlight.get());
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String client = clientHeader != null && !clientHeader.isEmpty() ? request.getHeader(clientHeader) : null;
+        return client != null && !client.isEmpty() ? client : request.getRemoteAddr();
+    }
+
+    private void rejectRateLimited(HttpServletResponse response, String client, long waitNanos) throws IOException {
+        long resetEpochSeconds = TimeUnit.MILLISECONDS.toSeconds(
+                System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(rateLimiter.nanosUntilFull(client)) + 999);
+        response.setHeader("X-RateLimit-Limit", Integer.toString(rateLimiter.getBurst()));
+        response.setHeader("X-RateLimit-Remaining", "0");
+        response.setHeader("X-RateLimit-Reset", Long.toString(resetEpochSeconds));
+        reject(response, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)), RATE_LIMITED_BODY);
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds, byte[] body) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private class ReleaseListener implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            inFlight.decrementAndGet();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
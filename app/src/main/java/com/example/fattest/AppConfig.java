@@ -1,8 +1,19 @@
 package com.example.fattest;
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code app.*} settings. Request threads read the reloadable ones (environment, greeting, feature)
+ * through {@link #snapshot()}. Setters only change the bean; readers see the change once {@link #publish()}
+ * or {@link #apply} publishes all of them together, so a change of several values is never seen half done.
+ */
 @Configuration
 @ConfigurationProperties(prefix = "app")
 public class AppConfig {
@@ -10,6 +21,14 @@ public class AppConfig {
     private String environment = "default";
     private Greeting greeting = new Greeting();
     private Feature feature = new Feature();
+    private Runtime runtime = new Runtime();
+    private Cache cache = new Cache();
+    private Reload reload = new Reload();
+    private Logging logging = new Logging();
+    private Admission admission = new Admission();
+    private Upstream upstream = new Upstream();
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
 
     public String getEnvironment() {
         return environment;
@@ -35,6 +54,91 @@ public class AppConfig {
         this.feature = feature;
     }
 
+    public Runtime getRuntime() {
+        return runtime;
+    }
+
+    public void setRuntime(Runtime runtime) {
+        this.runtime = runtime;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Reload getReload() {
+        return reload;
+    }
+
+    public void setReload(Reload reload) {
+        this.reload = reload;
+    }
+
+    public Logging getLogging() {
+        return logging;
+    }
+
+    public void setLogging(Logging logging) {
+        this.logging = logging;
+    }
+
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(Admission admission) {
+        this.admission = admission;
+    }
+
+    public Upstream getUpstream() {
+        return upstream;
+    }
+
+    public void setUpstream(Upstream upstream) {
+        this.upstream = upstream;
+    }
+
+    /**
+     * The last published, immutable view of the reloadable settings.
+     * Readers on the request path should use this instead of the mutable getters,
+     * so they never see a half-applied change.
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot.get();
+        return current != null ? current : publish();
+    }
+
+    @PostConstruct
+    void publishBoundValues() {
+        publish();
+    }
+
+    /**
+     * Publishes the current bean values as a new snapshot with the next version. Call it after changing
+     * reloadable settings through the setters.
+     */
+    public synchronized Snapshot publish() {
+        Snapshot previous = snapshot.get();
+        long version = previous != null ? previous.version() + 1 : 1;
+        Snapshot next = new Snapshot(version, environment, greeting.getPrefix(), greeting.getSuffix(), feature.isEnabled());
+        snapshot.set(next);
+        return next;
+    }
+
+    /**
+     * Copies the reloadable settings from a freshly bound config and publishes them.
+     */
+    public synchronized Snapshot apply(AppConfig source) {
+        this.environment = source.getEnvironment();
+        this.greeting = source.getGreeting();
+        this.feature = source.getFeature();
+        return publish();
+    }
+
     public static class Greeting {
         private String prefix = "Hello";
         private String suffix = "!";
@@ -67,4 +171,589 @@ public class AppConfig {
             this.enabled = enabled;
         }
     }
+
+    public static class Runtime {
+        private ThreadMode threads = ThreadMode.PLATFORM;
+
+        public ThreadMode getThreads() {
+            return threads;
+        }
+
+        public void setThreads(ThreadMode threads) {
+            this.threads = threads;
+        }
+    }
+
+    public static class Cache {
+        private boolean enabled = true;
+        private int maxEntries = 10_000;
+        private Duration maxAge = Duration.ofSeconds(60);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    public static class Reload {
+        private boolean enabled = true;
+        private String directory = "config";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+    }
+
+    public static class Logging {
+        private CountingAsyncQueueFullPolicy.Mode queueFullPolicy = CountingAsyncQueueFullPolicy.Mode.BLOCK;
+        private String discardThreshold = "INFO";
+
+        public CountingAsyncQueueFullPolicy.Mode getQueueFullPolicy() {
+            return queueFullPolicy;
+        }
+
+        public void setQueueFullPolicy(CountingAsyncQueueFullPolicy.Mode queueFullPolicy) {
+            this.queueFullPolicy = queueFullPolicy;
+        }
+
+        public String getDiscardThreshold() {
+            return discardThreshold;
+        }
+
+        public void setDiscardThreshold(String discardThreshold) {
+            this.discardThreshold = discardThreshold;
+        }
+    }
+
+    public static class Admission {
+        private boolean enabled = true;
+        private double ratePerClient = 1000;
+        private int burst = 200;
+        private int maxConcurrent = 400;
+        private int stripes = 4096;
+        // Unset: clients are told apart by remote address, a header any caller could vary is not trusted
+        private String trustedClientHeader;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getRatePerClient() {
+            return ratePerClient;
+        }
+
+        public void setRatePerClient(double ratePerClient) {
+            this.ratePerClient = ratePerClient;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        public String getTrustedClientHeader() {
+            return trustedClientHeader;
+        }
+
+        public void setTrustedClientHeader(String trustedClientHeader) {
+            this.trustedClientHeader = trustedClientHeader;
+        }
+    }
+
+    /**
+     * The user service behind personalized greetings ({@code GET /greet?userId=}).
+     */
+    public static class Upstream {
+        private String baseUrl = "http://localhost:8089";
+        private String userPath = "/api/users/{id}";
+        private String bulkPath = "/api/users?ids={ids}";
+        private int maxConnections = 50;
+        private Map<String, Integer> maxConnectionsPerHost = new LinkedHashMap<>();
+        private Duration pendingAcquireTimeout = Duration.ofMillis(500);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofMillis(250);
+        private Duration readTimeout = Duration.ofSeconds(1);
+        private int maxConcurrentCalls = 50;
+        private Breaker breaker = new Breaker();
+        private Retry retry = new Retry();
+        private Hedge hedge = new Hedge();
+        private ProfileCache profileCache = new ProfileCache();
+        private Batch batch = new Batch();
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public String getUserPath() {
+            return userPath;
+        }
+
+        public void setUserPath(String userPath) {
+            this.userPath = userPath;
+        }
+
+        public String getBulkPath() {
+            return bulkPath;
+        }
+
+        public void setBulkPath(String bulkPath) {
+            this.bulkPath = bulkPath;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public Map<String, Integer> getMaxConnectionsPerHost() {
+            return maxConnectionsPerHost;
+        }
+
+        public void setMaxConnectionsPerHost(Map<String, Integer> maxConnectionsPerHost) {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+        }
+
+        public Duration getPendingAcquireTimeout() {
+            return pendingAcquireTimeout;
+        }
+
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+        }
+
+        public Duration getMaxIdleTime() {
+            return maxIdleTime;
+        }
+
+        public void setMaxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        public Breaker getBreaker() {
+            return breaker;
+        }
+
+        public void setBreaker(Breaker breaker) {
+            this.breaker = breaker;
+        }
+
+        public Retry getRetry() {
+            return retry;
+        }
+
+        public void setRetry(Retry retry) {
+            this.retry = retry;
+        }
+
+        public Hedge getHedge() {
+            return hedge;
+        }
+
+        public void setHedge(Hedge hedge) {
+            this.hedge = hedge;
+        }
+
+        public ProfileCache getProfileCache() {
+            return profileCache;
+        }
+
+        public void setProfileCache(ProfileCache profileCache) {
+            this.profileCache = profileCache;
+        }
+
+        public Batch getBatch() {
+            return batch;
+        }
+
+        public void setBatch(Batch batch) {
+            this.batch = batch;
+        }
+
+        public static class Breaker {
+            private int windowSize = 20;
+            private int minimumCalls = 10;
+            private int failureRateThreshold = 50;
+            private int slowCallRateThreshold = 80;
+            private Duration slowCallDuration = Duration.ofMillis(500);
+            private Duration openDuration = Duration.ofSeconds(10);
+            private int halfOpenCalls = 3;
+
+            public int getWindowSize() {
+                return windowSize;
+            }
+
+            public void setWindowSize(int windowSize) {
+                this.windowSize = windowSize;
+            }
+
+            public int getMinimumCalls() {
+                return minimumCalls;
+            }
+
+            public void setMinimumCalls(int minimumCalls) {
+                this.minimumCalls = minimumCalls;
+            }
+
+            public int getFailureRateThreshold() {
+                return failureRateThreshold;
+            }
+
+            public void setFailureRateThreshold(int failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+            }
+
+            public int getSlowCallRateThreshold() {
+                return slowCallRateThreshold;
+            }
+
+            public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+                this.slowCallRateThreshold = slowCallRateThreshold;
+            }
+
+            public Duration getSlowCallDuration() {
+                return slowCallDuration;
+            }
+
+            public void setSlowCallDuration(Duration slowCallDuration) {
+                this.slowCallDuration = slowCallDuration;
+            }
+
+            public Duration getOpenDuration() {
+                return openDuration;
+            }
+
+            public void setOpenDuration(Duration openDuration) {
+                this.openDuration = openDuration;
+            }
+
+            public int getHalfOpenCalls() {
+                return halfOpenCalls;
+            }
+
+            public void setHalfOpenCalls(int halfOpenCalls) {
+                this.halfOpenCalls = halfOpenCalls;
+            }
+        }
+
+        public static class Retry {
+            private int maxAttempts = 3;
+            private Duration initialBackoff = Duration.ofMillis(50);
+            private Duration maxBackoff = Duration.ofSeconds(1);
+            private double multiplier = 2.0;
+            private double jitter = 0.5;
+            private Duration deadline = Duration.ofSeconds(2);
+            private double budgetRatio = 0.1;
+            private int budgetReserve = 10;
+
+            public int getMaxAttempts() {
+                return maxAttempts;
+            }
+
+            public void setMaxAttempts(int maxAttempts) {
+                this.maxAttempts = maxAttempts;
+            }
+
+            public Duration getInitialBackoff() {
+                return initialBackoff;
+            }
+
+            public void setInitialBackoff(Duration initialBackoff) {
+                this.initialBackoff = initialBackoff;
+            }
+
+            public Duration getMaxBackoff() {
+                return maxBackoff;
+            }
+
+            public void setMaxBackoff(Duration maxBackoff) {
+                this.maxBackoff = maxBackoff;
+            }
+
+            public double getMultiplier() {
+                return multiplier;
+            }
+
+            public void setMultiplier(double multiplier) {
+                this.multiplier = multiplier;
+            }
+
+            public double getJitter() {
+                return jitter;
+            }
+
+            public void setJitter(double jitter) {
+                this.jitter = jitter;
+            }
+
+            public Duration getDeadline() {
+                return deadline;
+            }
+
+            public void setDeadline(Duration deadline) {
+                this.deadline = deadline;
+            }
+
+            public double getBudgetRatio() {
+                return budgetRatio;
+            }
+
+            public void setBudgetRatio(double budgetRatio) {
+                this.budgetRatio = budgetRatio;
+            }
+
+            public int getBudgetReserve() {
+                return budgetReserve;
+            }
+
+            public void setBudgetReserve(int budgetReserve) {
+                this.budgetReserve = budgetReserve;
+            }
+        }
+
+        public static class Hedge {
+            private boolean enabled = false;
+            private double percentile = 95;
+            private Duration minDelay = Duration.ofMillis(10);
+            private int minSamples = 100;
+            private Duration window = Duration.ofSeconds(10);
+            private double budgetRatio = 0.1;
+            private int budgetReserve = 10;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public double getPercentile() {
+                return percentile;
+            }
+
+            public void setPercentile(double percentile) {
+                this.percentile = percentile;
+            }
+
+            public Duration getMinDelay() {
+                return minDelay;
+            }
+
+            public void setMinDelay(Duration minDelay) {
+                this.minDelay = minDelay;
+            }
+
+            public int getMinSamples() {
+                return minSamples;
+            }
+
+            public void setMinSamples(int minSamples) {
+                this.minSamples = minSamples;
+            }
+
+            public Duration getWindow() {
+                return window;
+            }
+
+            public void setWindow(Duration window) {
+                this.window = window;
+            }
+
+            public double getBudgetRatio() {
+                return budgetRatio;
+            }
+
+            public void setBudgetRatio(double budgetRatio) {
+                this.budgetRatio = budgetRatio;
+            }
+
+            public int getBudgetReserve() {
+                return budgetReserve;
+            }
+
+            public void setBudgetReserve(int budgetReserve) {
+                this.budgetReserve = budgetReserve;
+            }
+        }
+
+        public static class ProfileCache {
+            private boolean enabled = true;
+            private int maxEntries = 10_000;
+            private Duration ttl = Duration.ofSeconds(30);
+            private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+            private Duration negativeTtl = Duration.ofSeconds(5);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(int maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Duration getTtl() {
+                return ttl;
+            }
+
+            public void setTtl(Duration ttl) {
+                this.ttl = ttl;
+            }
+
+            public Duration getStaleWhileRevalidate() {
+                return staleWhileRevalidate;
+            }
+
+            public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+                this.staleWhileRevalidate = staleWhileRevalidate;
+            }
+
+            public Duration getNegativeTtl() {
+                return negativeTtl;
+            }
+
+            public void setNegativeTtl(Duration negativeTtl) {
+                this.negativeTtl = negativeTtl;
+            }
+        }
+
+        public static class Batch {
+            private boolean enabled = true;
+            private int maxSize = 50;
+            private Duration maxWait = Duration.ofMillis(2);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+
+            public Duration getMaxWait() {
+                return maxWait;
+            }
+
+            public void setMaxWait(Duration maxWait) {
+                this.maxWait = maxWait;
+            }
+        }
+    }
+
+    /**
+     * Immutable, versioned copy of the settings that can change at runtime.
+     */
+    public record Snapshot(long version, String environment, String greetingPrefix, String greetingSuffix,
+                           boolean featureEnabled) {
+    }
+
+    /**
+     * How the web tier runs request handlers.
+     */
+    public enum ThreadMode {
+        /** Tomcat's bounded platform-thread pool ({@code server.tomcat.threads.max}). */
+        PLATFORM,
+        /** One virtual thread per request, so blocked handlers do not hold a carrier thread. */
+        VIRTUAL
+    }
 }
@@ -0,0 +1,33 @@
+package com.example.fattest;
+
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+
+/**
+ * Counts the events an {@code AsyncLogger} hands to the ring buffer, for the enqueued counter of
+ * {@link CountingAsyncQueueFullPolicy}. A filter on an async logger runs once per event that passed the
+ * level check, just before the hand-off, so it sees every event the buffer receives or the policy routes.
+ * It never filters anything out.
+ */
+@Plugin(name = "CountAsyncEvents", category = Node.CATEGORY, elementType = Filter.ELEMENT_TYPE)
+public final class AsyncLogEventCountingFilter extends AbstractFilter {
+
+    private AsyncLogEventCountingFilter() {
+        super(Result.NEUTRAL, Result.NEUTRAL);
+    }
+
+    @PluginFactory
+    public static AsyncLogEventCountingFilter createFilter() {
+        return new AsyncLogEventCountingFilter();
+    }
+
+    @Override
+    public Result filter(LogEvent event) {
+        CountingAsyncQueueFullPolicy.countSubmitted();
+        return Result.NEUTRAL;
+    }
+}
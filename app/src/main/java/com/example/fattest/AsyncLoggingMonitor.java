@@ -0,0 +1,59 @@
+package com.example.fattest;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.async.AsyncLoggerConfig;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.jmx.RingBufferAdmin;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies {@code app.logging.*} to the async logging queue-full policy and exports the ring buffer
+ * state on {@code /metrics}. With the default synchronous config only the policy counters are written.
+ */
+@Component
+public class AsyncLoggingMonitor implements MetricsContributor {
+
+    private static final Logger logger = LogManager.getLogger(AsyncLoggingMonitor.class);
+
+    public AsyncLoggingMonitor(AppConfig appConfig) {
+        AppConfig.Logging settings = appConfig.getLogging();
+        CountingAsyncQueueFullPolicy.configure(settings.getQueueFullPolicy(),
+                Level.toLevel(settings.getDiscardThreshold(), Level.INFO));
+        logger.info("Async logging queue-full policy: {} (threshold {})",
+                settings.getQueueFullPolicy(), settings.getDiscardThreshold());
+    }
+
+    @Override
+    public void writeMetrics(PrometheusTextWriter writer) {
+        RingBufferAdmin ringBuffer = ringBuffer();
+        if (ringBuffer != null) {
+            writer.gauge("log4j_async_queue_capacity", "Async logging ring buffer slots",
+                    ringBuffer.getBufferSize());
+            writer.gauge("log4j_async_queue_size", "Log events queued for the appender thread",
+                    ringBuffer.getBufferSize() - ringBuffer.getRemainingCapacity());
+        }
+        writer.counter("log4j_async_events_enqueued_total", "Log events handed to the async logging ring buffer",
+                CountingAsyncQueueFullPolicy.getEnqueuedCount());
+        writer.counter("log4j_async_events_blocked_total", "Log events whose caller waited for a full ring buffer",
+                CountingAsyncQueueFullPolicy.getBlockedCount());
+        writer.counter("log4j_async_events_dropped_total", "Log events dropped because the ring buffer was full",
+                CountingAsyncQueueFullPolicy.getDroppedCount());
+    }
+
+    /**
+     * The ring buffer shared by all {@code AsyncLogger} elements, or null when the active config has none.
+     */
+    static RingBufferAdmin ringBuffer() {
+        if (!(LogManager.getContext(false) instanceof LoggerContext context)) {
+            return null;
+        }
+        Configuration config = context.getConfiguration();
+        // Asking for the delegate on a synchronous config would create an unstarted disruptor
+        boolean async = config.getRootLogger() instanceof AsyncLoggerConfig
+                || config.getLoggers().values().stream().anyMatch(AsyncLoggerConfig.class::isInstance);
+        return async ? config.getAsyncLoggerConfigDelegate().createRingBufferAdmin(context.getName(), "") : null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.fattest;
+
+/**
+ * An upstream call was refused locally, by the circuit breaker or the bulkhead, without being sent.
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    public CallNotPermittedException(String message) {
+        super(message, null, false, false);
+    }
+}
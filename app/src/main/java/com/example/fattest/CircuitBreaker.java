@@ -0,0 +1,178 @@
+package com.example.fattest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker over the outcomes of the last {@code windowSize} calls.
+ * <p>
+ * The breaker opens once at least {@code minimumCalls} outcomes are recorded and either the share of
+ * failures or the share of calls slower than {@code slowCallDuration} reaches its threshold. While open,
+ * calls are rejected without touching the dependency. After {@code openDuration} it lets
+ * {@code halfOpenCalls} probes through and closes or reopens depending on how they went.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LogManager.getLogger(CircuitBreaker.class);
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int minimumCalls;
+    private final int halfOpenCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    // guarded by this
+    private final byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesIssued;
+    private long rejected;
+    private long opened;
+
+    public CircuitBreaker(String name, AppConfig.Upstream.Breaker settings) {
+        this(name, settings.getWindowSize(), settings.getMinimumCalls(), settings.getFailureRateThreshold(),
+                settings.getSlowCallRateThreshold(), settings.getSlowCallDuration(), settings.getOpenDuration(),
+                settings.getHalfOpenCalls(), System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold, int slowCallRateThreshold,
+                   Duration slowCallDuration, Duration openDuration, int halfOpenCalls, LongSupplier clock) {
+        if (windowSize < 1 || halfOpenCalls < 1) {
+            throw new IllegalArgumentException("window size and half-open calls must be positive");
+        }
+        this.name = name;
+        this.outcomes = new byte[windowSize];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = Math.min(halfOpenCalls, windowSize);
+        this.clock = clock;
+    }
+
+    /**
+     * Asks to make one call. Every granted permission must be followed by {@link #onResult} or,
+     * if the call is abandoned, {@link #release}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        switch (currentState()) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (probesIssued < halfOpenCalls) {
+                    probesIssued++;
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        rejected++;
+        return false;
+    }
+
+    /**
+     * Records the outcome of a permitted call.
+     */
+    public synchronized void onResult(long durationNanos, boolean failed) {
+        State current = currentState();
+        if (current == State.OPEN) {
+            return;
+        }
+        byte outcome = (byte) ((failed ? FAILED : 0) | (durationNanos >= slowCallNanos ? SLOW : 0));
+        if (recorded == outcomes.length) {
+            byte evicted = outcomes[next];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (current == State.HALF_OPEN) {
+            if (recorded >= halfOpenCalls) {
+                if (exceedsThresholds()) {
+                    transitionTo(State.OPEN);
+                } else {
+                    transitionTo(State.CLOSED);
+                }
+            }
+        } else if (recorded >= minimumCalls && exceedsThresholds()) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * Gives back a permission whose call was cancelled before it produced an outcome.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesIssued > 0) {
+            probesIssued--;
+        }
+    }
+
+    public synchronized State getState() {
+        return currentState();
+    }
+
+    /**
+     * Calls rejected because the breaker was open or out of half-open probes.
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Number of times the breaker has opened.
+     */
+    public synchronized long getOpened() {
+        return opened;
+    }
+
+    private State currentState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    private boolean exceedsThresholds() {
+        return failures * 100 >= failureRateThreshold * recorded
+                || slowCalls * 100 >= slowCallRateThreshold * recorded;
+    }
+
+    private void transitionTo(State target) {
+        if (target == State.OPEN) {
+            openedAt = clock.getAsLong();
+            opened++;
+            logger.warn("Circuit breaker '{}' opened: {} of {} calls failed, {} slow", name, failures, recorded, slowCalls);
+        } else {
+            logger.info("Circuit breaker '{}' {}", name, target == State.CLOSED ? "closed" : "half-open, probing");
+        }
+        state = target;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+        probesIssued = 0;
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.fattest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.boot.origin.Origin;
+import org.springframework.boot.origin.OriginLookup;
+import org.springframework.boot.origin.TextResourceOrigin;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches the external config directory ({@code app.reload.directory}, Spring Boot's {@code ./config}
+ * by default) and re-binds {@code app.*} when {@code application.yml} or an
+ * {@code application-<profile>.yml} for an active profile changes.
+ * <p>
+ * The new values are applied through {@link AppConfig#apply}, which publishes them as one new snapshot,
+ * so request threads switch from the old config to the new one in a single step.
+ * Only environment, greeting and feature settings are reloadable; the rest needs a restart.
+ */
+@Component
+public class ConfigReloader implements SmartLifecycle, MetricsContributor {
+
+    private static final Logger logger = LogManager.getLogger(ConfigReloader.class);
+
+    // Editors often write a file in several steps, wait for them to settle before reloading
+    private static final long SETTLE_MILLIS = 100;
+
+    private final AppConfig appConfig;
+    private final ConfigurableEnvironment environment;
+
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile WatchService watchService;
+    private volatile Thread watcher;
+
+    public ConfigReloader(AppConfig appConfig, ConfigurableEnvironment environment) {
+        this.appConfig = appConfig;
+        this.environment = environment;
+    }
+
+    @Override
+    public void start() {
+        AppConfig.Reload settings = appConfig.getReload();
+        Path directory = Path.of(settings.getDirectory()).toAbsolutePath();
+        if (!settings.isEnabled() || !Files.isDirectory(directory)) {
+            logger.debug("Config reload inactive (enabled: {}, directory: {})", settings.isEnabled(), directory);
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.error("Could not watch config directory {}: {}", directory, e.getMessage());
+            return;
+        }
+
+        watcher = new Thread(() -> watch(directory), "config-reloader");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("Watching {} for config changes", directory);
+    }
+
+    @Override
+    public void stop() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.debug("Error closing config watch service: {}", e.getMessage());
+            }
+        }
+        watcher = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return watcher != null;
+    }
+
+    /**
+     * Re-reads the config files in {@code directory} and publishes the result.
+     *
+     * @return the published snapshot
+     */
+    public AppConfig.Snapshot reload(Path directory) throws IOException {
+        List<PropertySource<?>> fileSources = loadConfigFiles(directory);
+
+        Binder binder = new Binder(withReloadedFiles(fileSources, directory));
+        AppConfig fresh = binder.bindOrCreate("app", Bindable.of(AppConfig.class));
+        AppConfig.Snapshot snapshot = appConfig.apply(fresh);
+        reloads.incrementAndGet();
+        logger.info("Reloaded config from {} as version {}", directory, snapshot.version());
+        return snapshot;
+    }
+
+    @Override
+    public void writeMetrics(PrometheusTextWriter writer) {
+        writer.gauge("app_config_version", "Version of the published config snapshot", appConfig.snapshot().version());
+        writer.counter("app_config_reloads_total", "Successful config reloads", reloads.get());
+        writer.counter("app_config_reload_failures_total", "Config reloads that failed and kept the old config", failures.get());
+    }
+
+    private void watch(Path directory) {
+        WatchService service;
+        while ((service = watchService) != null) {
+            try {
+                WatchKey key = service.take();
+                boolean relevant = false;
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path changed && isConfigFile(changed.getFileName().toString())) {
+                            relevant = true;
+                        }
+                    }
+                    key.reset();
+                    Thread.sleep(SETTLE_MILLIS);
+                } while ((key = service.poll()) != null);
+
+                if (relevant) {
+                    reload(directory);
+                }
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                logger.error("Config reload failed, keeping version {}: {}", appConfig.snapshot().version(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The environment's sources with the stale copies of the watched files replaced by {@code fileSources},
+     * at the position the first copy held, so command-line arguments, system properties and environment
+     * variables keep overriding the files. Files that were not there at startup go where Spring Boot puts
+     * the {@code ./config} directory: ahead of the other config files.
+     */
+    private List<ConfigurationPropertySource> withReloadedFiles(List<PropertySource<?>> fileSources, Path directory) {
+        List<ConfigurationPropertySource> reloaded = new ArrayList<>();
+        fileSources.forEach(source -> reloaded.add(ConfigurationPropertySources.from(source).iterator().next()));
+
+        List<ConfigurationPropertySource> sources = new ArrayList<>();
+        int firstConfigFile = -1;
+        boolean inserted = false;
+        for (ConfigurationPropertySource source : ConfigurationPropertySources.get(environment)) {
+            Object underlying = source.getUnderlyingSource();
+            if (isFromDirectory(underlying, directory)) {
+                if (!inserted) {
+                    sources.addAll(reloaded);
+                    inserted = true;
+                }
+                continue;
+            }
+            if (firstConfigFile < 0 && isLoadedFromFile(underlying)) {
+                firstConfigFile = sources.size();
+            }
+            sources.add(source);
+        }
+        if (!inserted) {
+            sources.addAll(firstConfigFile >= 0 ? firstConfigFile : sources.size(), reloaded);
+        }
+        return sources;
+    }
+
+    private List<PropertySource<?>> loadConfigFiles(Path directory) throws IOException {
+        YamlPropertySourceLoader loader = new YamlPropertySourceLoader();
+        List<String> names = new ArrayList<>();
+        // Highest precedence first: the last active profile wins, base application.yml last
+        String[] profiles = environment.getActiveProfiles();
+        for (int i = profiles.length - 1; i >= 0; i--) {
+            names.add("application-" + profiles[i] + ".yml");
+        }
+        names.add("application.yml");
+
+        List<PropertySource<?>> sources = new ArrayList<>();
+        for (String name : names) {
+            Path file = directory.resolve(name);
+            if (Files.isRegularFile(file)) {
+                sources.addAll(loader.load("reloaded " + file, new FileSystemResource(file)));
+            }
+        }
+        return sources;
+    }
+
+    private boolean isConfigFile(String fileName) {
+        if (fileName.equals("application.yml")) {
+            return true;
+        }
+        for (String profile : environment.getActiveProfiles()) {
+            if (fileName.equals("application-" + profile + ".yml")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether {@code source} was loaded from a file in {@code directory}, going by the resource its values
+     * were read from rather than its name, which differs between config locations and platforms.
+     */
+    static boolean isFromDirectory(Object source, Path directory) {
+        if (!(source instanceof EnumerablePropertySource<?> propertySource)) {
+            return false;
+        }
+        for (String name : propertySource.getPropertyNames()) {
+            Resource resource = resourceOf(OriginLookup.getOrigin(propertySource, name));
+            if (resource != null) {
+                return isInDirectory(resource, directory);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLoadedFromFile(Object source) {
+        if (source instanceof EnumerablePropertySource<?> propertySource) {
+            for (String name : propertySource.getPropertyNames()) {
+                if (resourceOf(OriginLookup.getOrigin(propertySource, name)) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Resource resourceOf(Origin origin) {
+        for (; origin != null; origin = origin.getParent()) {
+            if (origin instanceof TextResourceOrigin textResourceOrigin) {
+                return textResourceOrigin.getResource();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isInDirectory(Resource resource, Path directory) {
+        if (!resource.isFile()) {
+            return false;
+        }
+        try {
+            Path parent = resource.getFile().toPath().toAbsolutePath().getParent();
+            return parent != null && Files.isDirectory(directory) && Files.isSameFile(parent, directory);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.fattest;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.async.AsyncQueueFullPolicy;
+import org.apache.logging.log4j.core.async.EventRoute;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides what happens to a log event when the async logging ring buffer is full, and counts the outcomes.
+ * <p>
+ * Log4j instantiates this class itself (see {@code log4j2.component.properties}), before Spring starts,
+ * so the mode is static and defaults to {@link Mode#BLOCK} until {@link AsyncLoggingMonitor} applies
+ * {@code app.logging.*}. Events handed to the ring buffer are counted by {@link AsyncLogEventCountingFilter},
+ * which the async loggers of {@code log4j2-async.xml} declare.
+ */
+public class CountingAsyncQueueFullPolicy implements AsyncQueueFullPolicy {
+
+    private static final LongAdder submitted = new LongAdder();
+    private static final LongAdder blocked = new LongAdder();
+    private static final LongAdder dropped = new LongAdder();
+    private static final LongAdder synchronous = new LongAdder();
+
+    private static volatile Mode mode = Mode.BLOCK;
+    private static volatile Level threshold = Level.INFO;
+
+    public static void configure(Mode mode, Level threshold) {
+        CountingAsyncQueueFullPolicy.mode = mode;
+        CountingAsyncQueueFullPolicy.threshold = threshold;
+    }
+
+    @Override
+    public EventRoute getRoute(long backgroundThreadId, Level level) {
+        // The appender thread itself logging into a full buffer would wait for itself forever
+        if (Thread.currentThread().threadId() == backgroundThreadId) {
+            synchronous.increment();
+            return EventRoute.SYNCHRONOUS;
+        }
+        boolean discard = switch (mode) {
+            case BLOCK -> false;
+            case DROP -> true;
+            case DISCARD_BELOW_LEVEL -> level.isLessSpecificThan(threshold);
+        };
+        if (discard) {
+            dropped.increment();
+            return EventRoute.DISCARD;
+        }
+        blocked.increment();
+        return EventRoute.ENQUEUE;
+    }
+
+    static void countSubmitted() {
+        submitted.increment();
+    }
+
+    /**
+     * Events that went into the ring buffer, whether right away or after waiting for space.
+     */
+    public static long getEnqueuedCount() {
+        return submitted.sum() - dropped.sum() - synchronous.sum();
+    }
+
+    /**
+     * Events whose caller had to wait for space in the ring buffer.
+     */
+    public static long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    public static long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * What to do with an event that finds the ring buffer full.
+     */
+    public enum Mode {
+        /** Wait for space: nothing is lost, but the logging thread stalls until the appender catches up. */
+        BLOCK,
+        /** Drop every event, so callers never wait on logging. */
+        DROP,
+        /** Drop events at or below {@code app.logging.discard-threshold}, wait for more severe ones. */
+        DISCARD_BELOW_LEVEL
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.fattest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams greetings for a sequence of names as NDJSON.
+ * Names are read one at a time from the input and each greeting is written as soon as it is rendered,
+ * so neither the request nor the response is held in memory. Output is flushed whenever reading more input
+ * would block, so a client sending names slowly gets each greeting back without waiting for the next name.
+ */
+@Component
+public class GreetingBatchStreamer {
+
+    private static final Logger logger = LogManager.getLogger(GreetingBatchStreamer.class);
+
+    // Also push partial output regularly when the input never runs dry
+    private static final int FLUSH_EVERY = 256;
+
+    private final GreetingService greetingService;
+    private final JsonFactory jsonFactory;
+
+    public GreetingBatchStreamer(GreetingService greetingService, ObjectMapper objectMapper) {
+        this.greetingService = greetingService;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Reads names from {@code in} and writes one {@code {"name":...,"greeting":...}} line per name to {@code out}.
+     * <p>
+     * {@code text/plain} input is one raw name per line (blank lines are skipped).
+     * Any other content type is read as JSON: either a top-level array of strings or
+     * newline-delimited JSON strings. Malformed input ends the stream with an {@code {"error":...}} line.
+     *
+     * @return number of greetings written
+     */
+    public long stream(InputStream in, MediaType contentType, OutputStream out) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            InputStream input = new FlushBeforeBlockingInputStream(in, generator);
+
+            long count;
+            try {
+                if (contentType != null && MediaType.TEXT_PLAIN.isCompatibleWith(contentType)) {
+                    count = streamLines(input, generator);
+                } else {
+                    count = streamJson(input, generator);
+                }
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                logger.warn("Stopping greeting batch on malformed input: {}", e.getMessage());
+                generator.writeStartObject();
+                generator.writeStringField("error", e.getMessage());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                return -1;
+            }
+
+            logger.debug("Streamed {} greetings", count);
+            return count;
+        }
+    }
+
+    private long streamLines(InputStream in, JsonGenerator generator) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                writeGreeting(line.strip(), generator, ++count);
+            }
+        }
+        return count;
+    }
+
+    private long streamJson(InputStream in, JsonGenerator generator) throws IOException {
+        long count = 0;
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            int depth = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                switch (token) {
+                    case START_ARRAY -> {
+                        if (++depth > 1) {
+                            throw new IllegalArgumentException("Nested arrays are not supported");
+                        }
+                    }
+                    case END_ARRAY -> depth--;
+                    case VALUE_STRING -> writeGreeting(parser.getText(), generator, ++count);
+                    case VALUE_NULL -> writeGreeting(null, generator, ++count);
+                    default -> throw new IllegalArgumentException("Expected a name string but found " + token);
+                }
+            }
+        }
+        return count;
+    }
+
+    private void writeGreeting(String name, JsonGenerator generator, long count) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("name", name);
+        generator.writeStringField("greeting", greetingService.greet(name));
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+
+        if (count % FLUSH_EVERY == 0) {
+            generator.flush();
+        }
+    }
+
+    /**
+     * Flushes the output before a read that would wait for the client, i.e. when nothing is available yet.
+     */
+    private static final class FlushBeforeBlockingInputStream extends FilterInputStream {
+
+        private final Flushable output;
+
+        FlushBeforeBlockingInputStream(InputStream in, Flushable output) {
+            super(in);
+            this.output = output;
+        }
+
+        @Override
+        public int read() throws IOException {
+            flushIfBlocking();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            flushIfBlocking();
+            return super.read(b, off, len);
+        }
+
+        private void flushIfBlocking() throws IOException {
+            if (in.available() <= 0) {
+                output.flush();
+            }
+        }
+    }
+}
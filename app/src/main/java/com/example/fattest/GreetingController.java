@@ -1,20 +1,121 @@
 package com.example.fattest;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Enumeration;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GreetingController {
 
+    private static final String TEXT_PLAIN_UTF8 = "text/plain;charset=UTF-8";
+    private static final MediaType TEXT_PLAIN = MediaType.parseMediaType(TEXT_PLAIN_UTF8);
+
     private final GreetingService greetingService;
+    private final GreetingBatchStreamer batchStreamer;
+    private final GreetingResponseCache responseCache;
+    private final PersonalizedGreetingService personalizedGreetingService;
+    private final AppConfig appConfig;
+    private final String cacheControl;
 
-    public GreetingController(GreetingService greetingService) {
+    public GreetingController(GreetingService greetingService, GreetingBatchStreamer batchStreamer,
+                              GreetingResponseCache responseCache,
+                              PersonalizedGreetingService personalizedGreetingService, AppConfig appConfig) {
         this.greetingService = greetingService;
+        this.batchStreamer = batchStreamer;
+        this.responseCache = responseCache;
+        this.personalizedGreetingService = personalizedGreetingService;
+        this.appConfig = appConfig;
+        this.cacheControl = CacheControl.maxAge(appConfig.getCache().getMaxAge()).cachePublic().getHeaderValue();
     }
 
+    /**
+     * Writes the greeting bytes directly to the response instead of going through the String message converter.
+     * With the response cache enabled the body comes pre-rendered with an ETag, and a matching
+     * {@code If-None-Match} gets a bodyless {@code 304 Not Modified}.
+     */
     @GetMapping("/greet")
-    public String greet(@RequestParam(required = false) String name) {
-        return greetingService.greet(name);
+    public void greet(@RequestParam(required = false) String name,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!appConfig.getCache().isEnabled()) {
+            response.setContentType(TEXT_PLAIN_UTF8);
+            greetingService.writeGreeting(name, response.getOutputStream());
+            return;
+        }
+
+        GreetingResponseCache.CachedGreeting greeting = responseCache.get(name);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ETAG, greeting.etag());
+        if (isNotModified(request, greeting)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(TEXT_PLAIN_UTF8);
+        response.setContentLength(greeting.body().length);
+        response.getOutputStream().write(greeting.body());
+    }
+
+    /**
+     * Compares {@code If-None-Match} with the cached ETag directly; {@code ServletWebRequest.checkNotModified}
+     * would cost an extra object and header parsing on every cached request.
+     */
+    private static boolean isNotModified(HttpServletRequest request, GreetingResponseCache.CachedGreeting greeting) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return false;
+        }
+        for (Enumeration<String> values = request.getHeaders(HttpHeaders.IF_NONE_MATCH); values.hasMoreElements(); ) {
+            if (greeting.matches(values.nextElement())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Greets a user of the user service. The upstream call is non-blocking, so the request thread is
+     * released while it is in flight; when the user service is unhealthy the plain greeting is returned.
+     */
+    @GetMapping(value = "/greet", params = "userId")
+    public Mono<ResponseEntity<String>> greetUser(@RequestParam long userId,
+                                                  @RequestParam(required = false) String name) {
+        return personalizedGreetingService.greet(userId, name)
+                .map(greeting -> ResponseEntity.ok().contentType(TEXT_PLAIN).body(greeting));
+    }
+
+    /**
+     * Greets every name in the request body (JSON array, NDJSON strings or plain text lines)
+     * and streams the results back as NDJSON while the body is still being read.
+     * An unparseable {@code Content-Type} is answered with {@code 415 Unsupported Media Type}.
+     */
+    @PostMapping("/greet/batch")
+    public void greetBatch(HttpServletRequest request, HttpServletResponse response)
+            throws IOException, HttpMediaTypeNotSupportedException {
+        MediaType contentType;
+        try {
+            contentType = StringUtils.hasText(request.getContentType())
+                    ? MediaType.parseMediaType(request.getContentType())
+                    : MediaType.APPLICATION_JSON;
+        } catch (InvalidMediaTypeException e) {
+            throw new HttpMediaTypeNotSupportedException(e.getMessage());
+        }
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        batchStreamer.stream(request.getInputStream(), contentType, response.getOutputStream());
     }
 }
@@ -0,0 +1,92 @@
+package com.example.fattest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Bounded cache of fully rendered /greet responses and their ETags, keyed by name.
+ * The cache belongs to one config version and is flushed as soon as a lookup sees a newer one.
+ */
+@Component
+public class GreetingResponseCache implements MetricsContributor {
+
+    private static final Logger logger = LogManager.getLogger(GreetingResponseCache.class);
+
+    // Longer names are rendered on every request rather than letting them take over the cache
+    static final int MAX_CACHED_NAME_LENGTH = 256;
+
+    private static final String DEFAULT_KEY = "";
+
+    private final GreetingService greetingService;
+    private final StripedLruCache<String, CachedGreeting> cache;
+
+    private volatile long cachedVersion = -1;
+
+    public GreetingResponseCache(GreetingService greetingService, AppConfig appConfig) {
+        this.greetingService = greetingService;
+        this.cache = new StripedLruCache<>(appConfig.getCache().getMaxEntries(), 16);
+    }
+
+    public CachedGreeting get(String name) {
+        GreetingTemplate template = greetingService.currentTemplate();
+        if (template.getVersion() != cachedVersion) {
+            flush(template.getVersion());
+        }
+
+        boolean isDefault = name == null || name.isBlank();
+        if (!isDefault && name.length() > MAX_CACHED_NAME_LENGTH) {
+            return render(template, name);
+        }
+
+        String key = isDefault ? DEFAULT_KEY : name;
+        CachedGreeting cached = cache.get(key);
+        // A request that raced with a flush may have stored a greeting rendered from the old version
+        if (cached == null || cached.version() != template.getVersion()) {
+            cached = render(template, isDefault ? null : name);
+            cache.put(key, cached);
+        }
+        return cached;
+    }
+
+    public StripedLruCache<String, CachedGreeting> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void writeMetrics(PrometheusTextWriter writer) {
+        writer.counter("greeting_cache_hits_total", "Greeting response cache hits", cache.getHitCount());
+        writer.counter("greeting_cache_misses_total", "Greeting response cache misses", cache.getMissCount());
+        writer.counter("greeting_cache_evictions_total", "Greeting response cache evictions", cache.getEvictionCount());
+        writer.gauge("greeting_cache_entries", "Greeting responses currently cached", cache.size());
+    }
+
+    private synchronized void flush(long version) {
+        if (version != cachedVersion) {
+            cache.clear();
+            cachedVersion = version;
+            logger.info("Greeting config is now version {}, flushed response cache", version);
+        }
+    }
+
+    private static CachedGreeting render(GreetingTemplate template, String name) {
+        byte[] body = template.toBytes(name);
+        return new CachedGreeting(body, "\"0" + DigestUtils.md5DigestAsHex(body) + "\"", template.getVersion());
+    }
+
+    /**
+     * Rendered UTF-8 body plus its strong ETag (same format as Spring's ShallowEtagHeaderFilter).
+     */
+    public record CachedGreeting(byte[] body, String etag, long version) {
+
+        /**
+         * Weak comparison of an {@code If-None-Match} value against this ETag, as for a GET. The ETag
+         * is quoted hex, so it can only occur in a list of entity tags as a whole tag (optionally
+         * {@code W/}-prefixed), which makes a substring search enough and keeps it allocation-free.
+         */
+        public boolean matches(String ifNoneMatch) {
+            return ifNoneMatch != null && (ifNoneMatch.contains(etag) || "*".equals(ifNoneMatch.strip()));
+        }
+    }
+}
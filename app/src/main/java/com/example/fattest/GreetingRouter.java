@@ -0,0 +1,75 @@
+package com.example.fattest;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Functional WebFlux variant of {@link GreetingController}, active when the app runs as a reactive
+ * web application ({@code spring.main.web-application-type=reactive}, see the {@code reactive} profile).
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class GreetingRouter {
+
+    private static final MediaType TEXT_PLAIN_UTF8 = MediaType.parseMediaType("text/plain;charset=UTF-8");
+
+    @Bean
+    public RouterFunction<ServerResponse> greetingRoutes(GreetingService greetingService,
+                                                         PersonalizedGreetingService personalizedGreetingService) {
+        return route(GET("/greet").and(queryParam("userId", userId -> true)),
+                        request -> greetUser(request, personalizedGreetingService))
+                .andRoute(GET("/greet"), request -> greet(request, greetingService));
+    }
+
+    private Mono<ServerResponse> greetUser(ServerRequest request, PersonalizedGreetingService personalizedGreetingService) {
+        long userId;
+        try {
+            userId = Long.parseLong(request.queryParam("userId").orElseThrow());
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+        return personalizedGreetingService.greet(userId, request.queryParam("name").orElse(null))
+                .flatMap(greeting -> ServerResponse.ok().contentType(TEXT_PLAIN_UTF8).bodyValue(greeting));
+    }
+
+    /**
+     * Renders the greeting straight into a buffer from the server's allocator (pooled on Netty).
+     */
+    private Mono<ServerResponse> greet(ServerRequest request, GreetingService greetingService) {
+        String name = request.queryParam("name").orElse(null);
+        DataBufferFactory bufferFactory = request.exchange().getResponse().bufferFactory();
+
+        Mono<DataBuffer> body = Mono.fromSupplier(() -> {
+            DataBuffer buffer = bufferFactory.allocateBuffer(64);
+            try (OutputStream out = buffer.asOutputStream()) {
+                greetingService.writeGreeting(name, out);
+            } catch (IOException e) {
+                DataBufferUtils.release(buffer);
+                throw new UncheckedIOException(e);
+            }
+            return buffer;
+        });
+
+        return ServerResponse.ok()
+                .contentType(TEXT_PLAIN_UTF8)
+                .body(BodyInserters.fromDataBuffers(body));
+    }
+}
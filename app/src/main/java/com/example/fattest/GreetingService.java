@@ -2,30 +2,50 @@ package com.example.fattest;
 
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 @Service
 public class GreetingService {
 
     private final AppConfig appConfig;
 
+    private volatile GreetingTemplate template;
+
     public GreetingService(AppConfig appConfig) {
         this.appConfig = appConfig;
     }
 
     public String greet(String name) {
-        String prefix = appConfig.getGreeting().getPrefix();
-        String suffix = appConfig.getGreeting().getSuffix();
+        return currentTemplate().render(name);
+    }
 
-        if (name == null || name.isBlank()) {
-            return prefix + ", World" + suffix;
-        }
-        return prefix + ", " + name + suffix;
+    /**
+     * Write the UTF-8 encoded greeting straight to {@code out}.
+     */
+    public void writeGreeting(String name, OutputStream out) throws IOException {
+        currentTemplate().writeTo(name, out);
     }
 
     public String getEnvironment() {
-        return appConfig.getEnvironment();
+        return appConfig.snapshot().environment();
     }
 
     public boolean isFeatureEnabled() {
-        return appConfig.getFeature().isEnabled();
+        return appConfig.snapshot().featureEnabled();
+    }
+
+    /**
+     * Returns the template for the current config snapshot, rebuilding it only when the version changed.
+     */
+    GreetingTemplate currentTemplate() {
+        AppConfig.Snapshot config = appConfig.snapshot();
+
+        GreetingTemplate current = template;
+        if (current == null || current.getVersion() != config.version()) {
+            current = new GreetingTemplate(config.version(), config.greetingPrefix(), config.greetingSuffix());
+            template = current;
+        }
+        return current;
     }
 }
@@ -0,0 +1,155 @@
+package com.example.fattest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Precomputed greeting pieces for one prefix/suffix pair.
+ * The UTF-8 bytes of "prefix, " and "suffix" (and the whole default greeting)
+ * are encoded once, so rendering a name only encodes the name itself.
+ */
+public final class GreetingTemplate {
+
+    private static final String DEFAULT_NAME = "World";
+    private static final String SEPARATOR = ", ";
+
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+    private static final int CHUNK = 256;
+
+    private final long version;
+    private final String prefix;
+    private final String suffix;
+    private final String head;
+    private final byte[] headBytes;
+    private final byte[] suffixBytes;
+    private final String defaultGreeting;
+    private final byte[] defaultGreetingBytes;
+
+    public GreetingTemplate(String prefix, String suffix) {
+        this(0, prefix, suffix);
+    }
+
+    public GreetingTemplate(long version, String prefix, String suffix) {
+        this.version = version;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.head = prefix + SEPARATOR;
+        this.headBytes = head.getBytes(StandardCharsets.UTF_8);
+        this.suffixBytes = suffix.getBytes(StandardCharsets.UTF_8);
+        this.defaultGreeting = head + DEFAULT_NAME + suffix;
+        this.defaultGreetingBytes = defaultGreeting.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String render(String name) {
+        if (isDefault(name)) {
+            return defaultGreeting;
+        }
+        return head + name + suffix;
+    }
+
+    /**
+     * Write the UTF-8 greeting for {@code name} to {@code out} without creating intermediate Strings.
+     * The name is encoded into a per-thread scratch buffer that is reused across calls.
+     * Virtual threads live for a single request, so they encode into a small local chunk instead of
+     * growing a scratch buffer each; names that do not fit are written chunk by chunk.
+     */
+    public void writeTo(String name, OutputStream out) throws IOException {
+        if (isDefault(name)) {
+            out.write(defaultGreetingBytes);
+            return;
+        }
+
+        int capacity = headBytes.length + name.length() * 3 + suffixBytes.length;
+        byte[] buffer;
+        if (Thread.currentThread().isVirtual()) {
+            if (capacity > CHUNK) {
+                writeChunked(name, out);
+                return;
+            }
+            buffer = new byte[capacity];
+        } else {
+            buffer = SCRATCH.get();
+            if (buffer.length < capacity) {
+                buffer = new byte[Math.max(capacity, buffer.length * 2)];
+                SCRATCH.set(buffer);
+            }
+        }
+
+        System.arraycopy(headBytes, 0, buffer, 0, headBytes.length);
+        int length = encodeUtf8(name, 0, name.length(), buffer, headBytes.length);
+        System.arraycopy(suffixBytes, 0, buffer, length, suffixBytes.length);
+        out.write(buffer, 0, length + suffixBytes.length);
+    }
+
+    private void writeChunked(String name, OutputStream out) throws IOException {
+        byte[] chunk = new byte[CHUNK];
+        out.write(headBytes);
+        for (int from = 0, n = name.length(); from < n; ) {
+            int to = Math.min(from + CHUNK / 3, n);
+            // Keep surrogate pairs in one chunk
+            if (to < n && Character.isHighSurrogate(name.charAt(to - 1))) {
+                to--;
+            }
+            out.write(chunk, 0, encodeUtf8(name, from, to, chunk, 0));
+            from = to;
+        }
+        out.write(suffixBytes);
+    }
+
+    public byte[] toBytes(String name) {
+        if (isDefault(name)) {
+            return defaultGreetingBytes.clone();
+        }
+        return render(name).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Version of the config snapshot this template was built from.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    private static boolean isDefault(String name) {
+        return name == null || name.isBlank();
+    }
+
+    /**
+     * Same output as {@code String.getBytes(UTF_8)} for {@code value[from, to)}, including '?' for unpaired
+     * surrogates. Writes at most 3 bytes per char.
+     */
+    static int encodeUtf8(String value, int from, int to, byte[] target, int offset) {
+        int pos = offset;
+        for (int i = from, n = to; i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                target[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                target[pos++] = (byte) (0xC0 | (c >> 6));
+                target[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                target[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                target[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                target[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                target[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                target[pos++] = '?';
+            } else {
+                target[pos++] = (byte) (0xE0 | (c >> 12));
+                target[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                target[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+}
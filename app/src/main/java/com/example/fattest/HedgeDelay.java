@@ -0,0 +1,84 @@
+package com.example.fattest;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Hedging delay for {@link UserLookupClient}: the configured percentile of first-attempt latencies in the
+ * last completed window, at least {@code min-delay}.
+ * <p>
+ * A window closes once it is {@code window} old and holds {@code min-samples} latencies; the delay is
+ * computed only then, so asking for it costs a clock read and never copies the histogram. Until the first
+ * window closes the delay is -1 (do not hedge). Because old windows are dropped, the delay follows the
+ * upstream when it slows down instead of being pinned by its whole history.
+ * <p>
+ * Only first attempts are recorded, and a first attempt cancelled because its hedge won is recorded with the
+ * time it had been waiting. Recording only the winners would drop exactly the slow attempts, and the delay
+ * would creep down the more lookups get hedged.
+ */
+public class HedgeDelay {
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final long windowNanos;
+    private final LongSupplier clock;
+
+    private volatile Window current;
+    private volatile long delayNanos = -1;
+
+    public HedgeDelay(AppConfig.Upstream.Hedge settings) {
+        this(settings.getPercentile(), settings.getMinDelay(), settings.getMinSamples(), settings.getWindow(),
+                System::nanoTime);
+    }
+
+    HedgeDelay(double percentile, Duration minDelay, int minSamples, Duration window, LongSupplier clock) {
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.minSamples = Math.max(1, minSamples);
+        this.windowNanos = window.toNanos();
+        this.clock = clock;
+        this.current = new Window(clock.getAsLong());
+    }
+
+    /**
+     * Records how long a first attempt took, or had been waiting when it was cancelled.
+     */
+    public void record(long nanos) {
+        Window window = current;
+        window.latency.record(nanos);
+        window.samples.increment();
+    }
+
+    /**
+     * The delay before hedging a lookup, or -1 while there is not yet a completed window.
+     */
+    public long currentNanos() {
+        Window window = current;
+        long now = clock.getAsLong();
+        if (now - window.startedAt >= windowNanos && window.samples.sum() >= minSamples) {
+            close(window, now);
+        }
+        return delayNanos;
+    }
+
+    private synchronized void close(Window window, long now) {
+        if (current != window) {
+            return;
+        }
+        current = new Window(now);
+        delayNanos = Math.max(minDelayNanos, window.latency.snapshot().valueAtPercentile(percentile));
+    }
+
+    private static final class Window {
+
+        private final long startedAt;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder samples = new LongAdder();
+
+        Window(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+}
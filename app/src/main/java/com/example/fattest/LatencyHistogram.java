@@ -0,0 +1,143 @@
+package com.example.fattest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of non-negative values (typically nanoseconds).
+ * <p>
+ * Every power of two is split into 32 linear sub-buckets, so any recorded value is reported
+ * within ~3% of its true value. Recording is one array increment plus a max check, with no
+ * allocation and no locking, so it is safe to call from every request.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(indexOf(value));
+
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Records {@code value} and, when it exceeds {@code expectedInterval}, the samples a closed-loop caller
+     * would have taken during the stall (value - interval, value - 2 * interval, ...), correcting for
+     * coordinated omission.
+     */
+    public void recordWithExpectedInterval(long value, long expectedInterval) {
+        record(value);
+        if (expectedInterval <= 0) {
+            return;
+        }
+        for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+            record(missing);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            copy[i] = count;
+            total += count;
+            sum += (double) count * midpointOf(i);
+        }
+        return new Snapshot(copy, total, sum, max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKET_COUNT + (mantissa - SUB_BUCKET_COUNT);
+    }
+
+    static long lowestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long mantissa = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return mantissa << shift;
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        return lowestValueAt(index) + (1L << shift) - 1;
+    }
+
+    private static double midpointOf(int index) {
+        return (lowestValueAt(index) + highestValueAt(index)) / 2.0;
+    }
+
+    /**
+     * Point-in-time copy of the histogram. Counts recorded while the copy is taken may or may not be included.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final double sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, double sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Approximate sum of all recorded values (bucket midpoints).
+         */
+        public double getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile (0-100), capped at the recorded max.
+         */
+        public long valueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.fattest;
+
+/**
+ * Bean that contributes samples to the {@code /metrics} scrape.
+ */
+public interface MetricsContributor {
+
+    void writeMetrics(PrometheusTextWriter writer);
+}
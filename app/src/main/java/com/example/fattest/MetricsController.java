@@ -0,0 +1,26 @@
+package com.example.fattest;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Scrape endpoint for all {@link MetricsContributor} beans in Prometheus text format.
+ */
+@RestController
+public class MetricsController {
+
+    private final List<MetricsContributor> contributors;
+
+    public MetricsController(List<MetricsContributor> contributors) {
+        this.contributors = contributors;
+    }
+
+    @GetMapping(value = "/metrics", produces = PrometheusTextWriter.CONTENT_TYPE)
+    public String metrics() {
+        PrometheusTextWriter writer = new PrometheusTextWriter();
+        contributors.forEach(contributor -> contributor.writeMetrics(writer));
+        return writer.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.fattest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Greets a user of the user service by name, without blocking the calling thread.
+ */
+@Service
+public class PersonalizedGreetingService {
+
+    private static final Logger logger = LogManager.getLogger(PersonalizedGreetingService.class);
+
+    private final GreetingService greetingService;
+    private final UserProfileCache userProfileCache;
+
+    public PersonalizedGreetingService(GreetingService greetingService, UserProfileCache userProfileCache) {
+        this.greetingService = greetingService;
+        this.userProfileCache = userProfileCache;
+    }
+
+    /**
+     * Greets the user with the given id. Unknown users, failed lookups and lookups refused by the
+     * circuit breaker or bulkhead all get the plain greeting for {@code fallbackName}.
+     */
+    public Mono<String> greet(long userId, String fallbackName) {
+        return userProfileCache.get(userId)
+                .map(profile -> greetingService.greet(profile.name()))
+                .onErrorResume(e -> {
+                    logger.debug("User {} lookup failed, using plain greeting: {}", userId, e.toString());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> greetingService.greet(fallbackName)));
+    }
+}
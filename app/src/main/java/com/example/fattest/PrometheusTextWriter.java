@@ -0,0 +1,92 @@
+package com.example.fattest;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Minimal writer for the Prometheus text exposition format (version 0.0.4).
+ * Labels are passed as alternating name/value pairs.
+ */
+public class PrometheusTextWriter {
+
+    public static final String CONTENT_TYPE = "text/plain;version=0.0.4;charset=UTF-8";
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final StringBuilder out = new StringBuilder(4096);
+    private final Set<String> described = new HashSet<>();
+
+    public PrometheusTextWriter counter(String name, String help, double value, String... labels) {
+        return sample(name, "counter", help, value, labels);
+    }
+
+    public PrometheusTextWriter gauge(String name, String help, double value, String... labels) {
+        return sample(name, "gauge", help, value, labels);
+    }
+
+    /**
+     * Writes a nanosecond histogram as a summary in seconds with p50/p99/p99.9 quantiles.
+     * The max is not part of the summary type, write it separately with {@link #gauge}.
+     */
+    public PrometheusTextWriter summary(String name, String help, LatencyHistogram.Snapshot snapshot, String... labels) {
+        describe(name, "summary", help);
+        for (double quantile : QUANTILES) {
+            line(name, withLabel(labels, "quantile", Double.toString(quantile)),
+                    snapshot.valueAtPercentile(quantile * 100) / 1e9);
+        }
+        line(name + "_sum", labels, snapshot.getSum() / 1e9);
+        line(name + "_count", labels, snapshot.getCount());
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private PrometheusTextWriter sample(String name, String type, String help, double value, String... labels) {
+        describe(name, type, help);
+        line(name, labels, value);
+        return this;
+    }
+
+    private void describe(String name, String type, String help) {
+        if (described.add(name)) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        }
+    }
+
+    private void line(String name, String[] labels, double value) {
+        out.append(name);
+        if (labels.length > 0) {
+            out.append('{');
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String[] withLabel(String[] labels, String name, String value) {
+        String[] result = new String[labels.length + 2];
+        System.arraycopy(labels, 0, result, 0, labels.length);
+        result[labels.length] = name;
+        result[labels.length + 1] = value;
+        return result;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.fattest;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-endpoint request counts and latency histograms.
+ * Endpoints are keyed by their mapping pattern (e.g. {@code /greet}), never the raw URI,
+ * so the number of series stays bounded.
+ */
+@Component
+public class RequestMetrics implements MetricsContributor {
+
+    static final String UNMATCHED = "UNMATCHED";
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, int status, long durationNanos) {
+        EndpointStats stats = endpoints.get(endpoint);
+        if (stats == null) {
+            stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        }
+        stats.requests.increment();
+        if (status >= 500) {
+            stats.serverErrors.increment();
+        }
+        stats.latency.record(durationNanos);
+    }
+
+    public EndpointStats get(String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    @Override
+    public void writeMetrics(PrometheusTextWriter writer) {
+        // Samples of one metric family have to stay contiguous in the text format
+        endpoints.forEach((endpoint, stats) -> writer.counter("http_server_requests_total",
+                "Requests handled per endpoint", stats.requests.sum(), "endpoint", endpoint));
+        endpoints.forEach((endpoint, stats) -> writer.counter("http_server_errors_total",
+                "Requests answered with a 5xx status", stats.serverErrors.sum(), "endpoint", endpoint));
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        endpoints.forEach((endpoint, stats) -> snapshots.put(endpoint, stats.latency.snapshot()));
+        snapshots.forEach((endpoint, snapshot) -> writer.summary("http_server_request_duration_seconds",
+                "Request latency per endpoint", snapshot, "endpoint", endpoint));
+        snapshots.forEach((endpoint, snapshot) -> writer.gauge("http_server_request_duration_seconds_max",
+                "Slowest request per endpoint", snapshot.getMax() / 1e9, "endpoint", endpoint));
+    }
+
+    public static final class EndpointStats {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        public long getRequestCount() {
+            return requests.sum();
+        }
+
+        public long getServerErrorCount() {
+            return serverErrors.sum();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+}
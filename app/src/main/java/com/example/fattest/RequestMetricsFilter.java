@@ -0,0 +1,87 @@
+package com.example.fattest;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Times every servlet request and records it against the matched endpoint pattern.
+ * Async requests are recorded when the async cycle completes rather than when the filter returns.
+ * A request whose handler throws is recorded as a 500 here: the error page is rendered on an ERROR
+ * dispatch, which this filter does not see, and the response still reports 200 when the exception passes.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final RequestMetrics metrics;
+
+    public RequestMetricsFilter(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } catch (Throwable e) {
+            record(request, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, start);
+            throw e;
+        }
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new CompletionListener(request, response, start));
+        } else {
+            record(request, response.getStatus(), start);
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long start) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern != null ? pattern.toString() : RequestMetrics.UNMATCHED;
+        metrics.record(endpoint, status, System.nanoTime() - start);
+    }
+
+    private class CompletionListener implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long start;
+
+        CompletionListener(HttpServletRequest request, HttpServletResponse response, long start) {
+            this.request = request;
+            this.response = response;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(request, response.getStatus(), start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.fattest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Retries idempotent upstream calls that failed with 429, 5xx or a transport error.
+ * <p>
+ * The wait before a retry is the upstream's {@code Retry-After} when it sent one, else an exponential
+ * backoff with jitter. No retry is scheduled that would start after the call's overall deadline, so a
+ * long {@code Retry-After} ends the call at once instead of holding it. Retries also draw on a
+ * {@link TokenBudget} that earns {@code budget-ratio} of a retry per call and holds at most
+ * {@code budget-reserve} retries, which keeps retries to a small share of traffic while the upstream is struggling.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double multiplier;
+    private final double jitter;
+    private final long deadlineNanos;
+    private final DoubleSupplier random;
+
+    private final TokenBudget budget;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder skippedForDeadline = new LongAdder();
+    private final LongAdder skippedForBudget = new LongAdder();
+
+    public RetryPolicy(AppConfig.Upstream.Retry settings) {
+        this(settings, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    RetryPolicy(AppConfig.Upstream.Retry settings, DoubleSupplier random) {
+        this.maxAttempts = Math.max(1, settings.getMaxAttempts());
+        this.initialBackoffNanos = settings.getInitialBackoff().toNanos();
+        this.maxBackoffNanos = settings.getMaxBackoff().toNanos();
+        this.multiplier = settings.getMultiplier();
+        this.jitter = Math.min(1, Math.max(0, settings.getJitter()));
+        this.deadlineNanos = settings.getDeadline().toNanos();
+        this.budget = new TokenBudget(settings.getBudgetRatio(), settings.getBudgetReserve());
+        this.random = random;
+    }
+
+    /**
+     * Wraps {@code call} so that it is retried under this policy. Calls with a non-idempotent method are
+     * returned unchanged. Every attempt is cut off at the overall deadline.
+     */
+    public <T> Mono<T> apply(Mono<T> call, HttpMethod method) {
+        if (!isIdempotent(method)) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            budget.deposit();
+            long deadline = System.nanoTime() + deadlineNanos;
+            Mono<T> attempt = Mono.defer(() -> call.timeout(Duration.ofNanos(Math.max(1, deadline - System.nanoTime()))));
+            return attempt.retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+                long delay = retryDelay(signal.failure(), signal.totalRetries() + 1, deadline - System.nanoTime());
+                return delay < 0 ? Mono.error(signal.failure()) : Mono.delay(Duration.ofNanos(delay));
+            })));
+        });
+    }
+
+    /**
+     * Decides whether the given failure is retried.
+     *
+     * @param retry           1 for the first retry, 2 for the second and so on
+     * @param remainingNanos  time left before the call's deadline
+     * @return nanoseconds to wait before the retry, or -1 to give up
+     */
+    long retryDelay(Throwable failure, long retry, long remainingNanos) {
+        if (retry >= maxAttempts || !isRetryable(failure)) {
+            return -1;
+        }
+        Duration retryAfter = failure instanceof UpstreamException upstream ? upstream.getRetryAfter() : null;
+        long delay = retryAfter != null ? retryAfter.toNanos() : backoff(retry);
+        if (delay >= remainingNanos) {
+            skippedForDeadline.increment();
+            return -1;
+        }
+        if (!budget.tryWithdraw()) {
+            skippedForBudget.increment();
+            return -1;
+        }
+        retries.increment();
+        return delay;
+    }
+
+    long backoff(long retry) {
+        double base = Math.min(maxBackoffNanos, initialBackoffNanos * Math.pow(multiplier, retry - 1));
+        return (long) (base * (1 - jitter * random.getAsDouble()));
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getSkippedForDeadline() {
+        return skippedForDeadline.sum();
+    }
+
+    public long getSkippedForBudget() {
+        return skippedForBudget.sum();
+    }
+
+    /**
+     * Retries currently available in the budget.
+     */
+    public double getBudget() {
+        return budget.getBalance();
+    }
+
+    /**
+     * Reads how long the upstream asked us to wait: {@code Retry-After} as seconds or an HTTP date, else the
+     * {@code X-RateLimit-Reset} epoch second once {@code X-RateLimit-Remaining} is 0.
+     *
+     * @return the wait, or {@code null} if the headers do not give one
+     */
+    static Duration retryAfter(HttpHeaders headers, Instant now) {
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null) {
+            try {
+                return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+            } catch (NumberFormatException e) {
+                try {
+                    return positive(Duration.between(now,
+                            ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant()));
+                } catch (DateTimeParseException ignored) {
+                    return null;
+                }
+            }
+        }
+        String reset = headers.getFirst("X-RateLimit-Reset");
+        if (reset != null && "0".equals(headers.getFirst("X-RateLimit-Remaining"))) {
+            try {
+                return positive(Duration.between(now, Instant.ofEpochSecond(Long.parseLong(reset.trim()))));
+            } catch (NumberFormatException ignored) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static Duration positive(Duration duration) {
+        return duration.isNegative() ? Duration.ZERO : duration;
+    }
+
+    private static boolean isIdempotent(HttpMethod method) {
+        return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS
+                || method == HttpMethod.PUT || method == HttpMethod.DELETE;
+    }
+
+    private static boolean isRetryable(Throwable failure) {
+        if (failure instanceof UpstreamException upstream) {
+            return upstream.getStatus() == 429 || upstream.getStatus() >= 500;
+        }
+        return failure instanceof WebClientRequestException || failure instanceof TimeoutException;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.fattest;
+
+import java.lang.reflect.Array;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded LRU cache split into independently locked segments, so concurrent readers of
+ * different keys rarely contend. Each segment evicts its own least recently used entry once it
+ * holds more than its share of {@code maxEntries}.
+ */
+public class StripedLruCache<K, V> {
+
+    private final Segment[] segments;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public StripedLruCache(int maxEntries, int concurrency) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(concurrency, maxEntries)));
+        int perSegment = Math.max(1, maxEntries / segmentCount);
+
+        this.segments = (Segment[]) Array.newInstance(Segment.class, segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.mask = segmentCount - 1;
+    }
+
+    public V get(K key) {
+        Segment segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    public void put(K key, V value) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the cached value or loads and caches it. The loader runs outside the segment lock,
+     * so two threads missing on the same key at once may both load it; the last one wins.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public V remove(K key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment segmentFor(K key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & mask];
+    }
+
+    private final class Segment extends LinkedHashMap<K, V> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.fattest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-client token buckets kept as GCRA "theoretical arrival times" in a fixed array of stripes.
+ * <p>
+ * A client key hashes to one stripe and every decision is a single CAS on that slot, so there is no
+ * locking and no per-client allocation. Clients that collide on a stripe share a bucket; size the
+ * stripe count well above the number of concurrently active clients to keep that rare.
+ */
+public class StripedRateLimiter {
+
+    private final AtomicLongArray arrivalTimes;
+    private final int mask;
+    private final long emissionInterval;
+    private final long burstWindow;
+    private final int burst;
+    private final long origin = System.nanoTime();
+
+    /**
+     * @param ratePerSecond sustained requests per second per client
+     * @param burst         requests a client may send at once after being idle
+     * @param stripes       number of buckets, rounded up to a power of two
+     */
+    public StripedRateLimiter(double ratePerSecond, int burst, int stripes) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate and burst must be positive: " + ratePerSecond + ", " + burst);
+        }
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.arrivalTimes = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.emissionInterval = Math.max(1, (long) (1e9 / ratePerSecond));
+        this.burst = burst;
+        this.burstWindow = emissionInterval * burst;
+    }
+
+    /**
+     * Takes one token for {@code key}.
+     *
+     * @return 0 when the request is admitted, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(Object key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(Object key, long nanoTime) {
+        int stripe = stripeOf(key);
+        long now = nanoTime - origin;
+        while (true) {
+            long arrival = arrivalTimes.get(stripe);
+            long next = Math.max(arrival, now) + emissionInterval;
+            long excess = next - now - burstWindow;
+            if (excess > 0) {
+                return excess;
+            }
+            if (arrivalTimes.compareAndSet(stripe, arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Tokens {@code key} could take right now.
+     */
+    public int remaining(Object key) {
+        return remaining(key, System.nanoTime());
+    }
+
+    int remaining(Object key, long nanoTime) {
+        long now = nanoTime - origin;
+        long debt = Math.max(0, arrivalTimes.get(stripeOf(key)) - now);
+        return (int) Math.max(0, (burstWindow - debt) / emissionInterval);
+    }
+
+    /**
+     * Nanoseconds until the bucket of {@code key} is full again.
+     */
+    public long nanosUntilFull(Object key) {
+        return Math.max(0, arrivalTimes.get(stripeOf(key)) - (System.nanoTime() - origin));
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    private int stripeOf(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.fattest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget for extra upstream requests (retries, hedges): every call earns {@code ratio} of a token, at most
+ * {@code reserve} tokens are kept, and each extra request spends a whole one. Under steady traffic this caps
+ * extra requests at {@code ratio} of calls, however badly the upstream is doing. Starts full.
+ */
+public class TokenBudget {
+
+    private static final long MICROS_PER_TOKEN = 1_000_000;
+
+    private final long depositMicros;
+    private final long maxBalanceMicros;
+    private final AtomicLong balanceMicros;
+
+    public TokenBudget(double ratio, int reserve) {
+        this.depositMicros = (long) (ratio * MICROS_PER_TOKEN);
+        this.maxBalanceMicros = reserve * MICROS_PER_TOKEN;
+        this.balanceMicros = new AtomicLong(maxBalanceMicros);
+    }
+
+    public void deposit() {
+        balanceMicros.accumulateAndGet(depositMicros, (balance, deposit) -> Math.min(maxBalanceMicros, balance + deposit));
+    }
+
+    /**
+     * Spends one token if there is one.
+     */
+    public boolean tryWithdraw() {
+        while (true) {
+            long balance = balanceMicros.get();
+            if (balance < MICROS_PER_TOKEN) {
+                return false;
+            }
+            if (balanceMicros.compareAndSet(balance, balance - MICROS_PER_TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Tokens currently available.
+     */
+    public double getBalance() {
+        return (double) balanceMicros.get() / MICROS_PER_TOKEN;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.fattest;
+
+import java.time.Duration;
+
+/**
+ * The user service answered with an error status.
+ */
+public class UpstreamException extends RuntimeException {
+
+    private final int status;
+    private final Duration retryAfter;
+
+    public UpstreamException(int status, String message) {
+        this(status, message, null);
+    }
+
+    public UpstreamException(int status, String message, Duration retryAfter) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * How long the user service asked us to wait before trying again, or {@code null} if it did not say.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.fattest;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects user lookups that arrive within {@code app.upstream.batch.max-wait} of the first one, up to
+ * {@code max-size} distinct ids, and answers them with one {@link UserLookupClient#lookupAll} call.
+ * A batch holding a single id uses the single-user lookup instead, so a quiet service keeps hedging
+ * and exact 404 handling.
+ */
+@Component
+public class UserLookupBatcher implements MetricsContributor {
+
+    private final UserLookupClient client;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long maxWaitNanos;
+    private final Scheduler scheduler = Schedulers.parallel();
+
+    // guarded by this
+    private Map<Long, Sinks.One<UserProfile>> pending = new LinkedHashMap<>();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedLookups = new LongAdder();
+
+    public UserLookupBatcher(UserLookupClient client, AppConfig appConfig) {
+        AppConfig.Upstream.Batch settings = appConfig.getUpstream().getBatch();
+        this.client = client;
+        this.enabled = settings.isEnabled();
+        this.maxSize = Math.max(1, settings.getMaxSize());
+        this.maxWaitNanos = settings.getMaxWait().toNanos();
+    }
+
+    /**
+     * Looks up one user, possibly as part of a batch. Same result contract as {@link UserLookupClient#lookup}.
+     */
+    public Mono<UserProfile> lookup(long id) {
+        if (!enabled) {
+            return client.lookup(id);
+        }
+        return Mono.defer(() -> {
+            Sinks.One<UserProfile> sink;
+            Map<Long, Sinks.One<UserProfile>> full = null;
+            synchronized (this) {
+                sink = pending.get(id);
+                if (sink == null) {
+                    sink = Sinks.one();
+                    pending.put(id, sink);
+                    if (pending.size() >= maxSize) {
+                        full = pending;
+                        pending = new LinkedHashMap<>();
+                    } else if (pending.size() == 1) {
+                        Map<Long, Sinks.One<UserProfile>> batch = pending;
+                        scheduler.schedule(() -> flush(batch), maxWaitNanos, TimeUnit.NANOSECONDS);
+                    }
+                }
+                batchedLookups.increment();
+            }
+            if (full != null) {
+                send(full);
+            }
+            return sink.asMono();
+        });
+    }
+
+    @Override
+    public void writeMetrics(PrometheusTextWriter writer) {
+        writer.counter("upstream_user_lookup_batches_total", "Batches sent to the user service", batches.sum());
+        writer.counter("upstream_user_lookups_batched_total", "Lookups queued for a batch", batchedLookups.sum());
+    }
+
+    /**
+     * Sends the batch the timer was started for, unless it already went out because it filled up.
+     */
+    private void flush(Map<Long, Sinks.One<UserProfile>> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = new LinkedHashMap<>();
+        }
+        send(batch);
+    }
+
+    private void send(Map<Long, Sinks.One<UserProfile>> batch) {
+        batches.increment();
+        if (batch.size() == 1) {
+            Map.Entry<Long, Sinks.One<UserProfile>> only = batch.entrySet().iterator().next();
+            client.lookup(only.getKey()).subscribe(
+                    profile -> only.getValue().tryEmitValue(profile),
+                    e -> only.getValue().tryEmitError(e),
+                    () -> only.getValue().tryEmitEmpty());
+            return;
+        }
+        client.lookupAll(batch.keySet()).subscribe(
+                profiles -> batch.forEach((id, sink) -> {
+                    UserProfile profile = profiles.get(id);
+                    if (profile != null) {
+                        sink.tryEmitValue(profile);
+                    } else {
+                        sink.tryEmitEmpty();
+                    }
+                }),
+                e -> batch.values().forEach(sink -> sink.tryEmitError(e)));
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.fattest;
+
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking client for the user service. Connections are kept alive in a Reactor Netty pool
+ * ({@code app.upstream.max-connections} per remote host, overridable per {@code host:port}), and every
+ * call is bounded by the connect and read timeouts, so a slow upstream cannot hold a caller indefinitely.
+ * <p>
+ * Calls pass a bulkhead ({@code app.upstream.max-concurrent-calls} in flight) and a {@link CircuitBreaker};
+ * when either refuses, the lookup fails at once with {@link CallNotPermittedException}.
+ * Transport errors, timeouts and 5xx answers count as breaker failures; other answers as successes.
+ * Failed attempts are retried under {@link RetryPolicy}, each retry passing the bulkhead and breaker again.
+ * <p>
+ * With {@code app.upstream.hedge.enabled}, an attempt that has not answered within the {@link HedgeDelay}
+ * gets a second, hedged request; the first answer wins and the other request is cancelled. Hedges draw on a
+ * {@link TokenBudget} like retries, so a slow upstream sees at most {@code budget-ratio} extra lookups.
+ */
+@Component
+public class UserLookupClient implements MetricsContributor {
+
+    private static final Logger logger = LogManager.getLogger(UserLookupClient.class);
+
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+    private final String userPath;
+    private final String bulkPath;
+    private final int maxConcurrentCalls;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryPolicy retryPolicy;
+    private final boolean hedgeEnabled;
+    private final HedgeDelay hedgeDelay;
+    private final TokenBudget hedgeBudget;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder found = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder bulkheadRejected = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder hedgeLosersCancelled = new LongAdder();
+    private final LongAdder hedgesSkippedForBudget = new LongAdder();
+    private final LongAdder bulkLookups = new LongAdder();
+    private final LongAdder bulkIds = new LongAdder();
+
+    public UserLookupClient(AppConfig appConfig, WebClient.Builder webClientBuilder) {
+        AppConfig.Upstream settings = appConfig.getUpstream();
+        this.connectionProvider = connectionProvider(settings);
+        this.userPath = settings.getUserPath();
+        this.bulkPath = settings.getBulkPath();
+        this.maxConcurrentCalls = settings.getMaxConcurrentCalls();
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = new CircuitBreaker("user-service", settings.getBreaker());
+        this.retryPolicy = new RetryPolicy(settings.getRetry());
+        AppConfig.Upstream.Hedge hedge = settings.getHedge();
+        this.hedgeEnabled = hedge.isEnabled();
+        this.hedgeDelay = new HedgeDelay(hedge);
+        this.hedgeBudget = new TokenBudget(hedge.getBudgetRatio(), hedge.getBudgetReserve());
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .responseTimeout(settings.getReadTimeout());
+
+        this.webClient = webClientBuilder.clone()
+                .baseUrl(settings.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        logger.info("User service at {} (pool {} per host, connect {} ms, read {} ms)", settings.getBaseUrl(),
+                settings.getMaxConnections(), settings.getConnectTimeout().toMillis(), settings.getReadTimeout().toMillis());
+    }
+
+    /**
+     * Looks up one user.
+     *
+     * @return the profile, empty if the user does not exist, or an error for any other failure
+     */
+    public Mono<UserProfile> lookup(long id) {
+        return retryPolicy.apply(hedgeEnabled ? hedged(id) : attempt(id), HttpMethod.GET);
+    }
+
+    /**
+     * Runs one attempt and, if it is still pending after {@link #hedgeDelayNanos()} and the hedge budget
+     * allows, a second one. The first attempt to answer (with a profile or not found) wins; an error only
+     * ends the call once no other attempt is running.
+     */
+    private Mono<UserProfile> hedged(long id) {
+        return Mono.create(sink -> {
+            hedgeBudget.deposit();
+            new HedgedCall(id, sink).start(hedgeDelayNanos());
+        });
+    }
+
+    /**
+     * The current hedging delay, -1 while there are too few samples to hedge.
+     */
+    long hedgeDelayNanos() {
+        return hedgeDelay.currentNanos();
+    }
+
+    long getHedges() {
+        return hedges.sum();
+    }
+
+    long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * Attempts of a hedged lookup that were cancelled because the other attempt answered first.
+     */
+    long getHedgeLosersCancelled() {
+        return hedgeLosersCancelled.sum();
+    }
+
+    private Mono<UserProfile> attempt(long id) {
+        return guarded(() -> {
+            long start = System.nanoTime();
+            return webClient.get()
+                    .uri(userPath, id)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .exchangeToMono(response -> {
+                        if (response.statusCode().is2xxSuccessful()) {
+                            return response.bodyToMono(UserProfile.class);
+                        }
+                        if (response.statusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                            return response.releaseBody().then(Mono.empty());
+                        }
+                        return response.releaseBody().then(Mono.error(errorOf(response)));
+                    })
+                    .doOnSuccess(profile -> {
+                        latency.record(System.nanoTime() - start);
+                        (profile != null ? found : notFound).increment();
+                    });
+        });
+    }
+
+    /**
+     * Looks up several users in one call to the bulk endpoint ({@code app.upstream.bulk-path}).
+     * The call is retried, and passes the bulkhead and breaker, like a single lookup; it is never hedged.
+     *
+     * @return the profiles found, by id; ids the user service does not know are absent
+     */
+    public Mono<Map<Long, UserProfile>> lookupAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        String joined = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        Mono<Map<Long, UserProfile>> call = guarded(() -> webClient.get()
+                .uri(bulkPath, joined)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToMono(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToFlux(UserProfile.class)
+                                .filter(profile -> ids.contains(profile.id()))
+                                .collectMap(UserProfile::id);
+                    }
+                    return response.releaseBody().then(Mono.error(errorOf(response)));
+                })
+                .doOnSuccess(profiles -> {
+                    bulkLookups.increment();
+                    bulkIds.add(ids.size());
+                }));
+        return retryPolicy.apply(call, HttpMethod.GET);
+    }
+
+    /**
+     * Runs one request inside the bulkhead and circuit breaker.
+     */
+    private <T> Mono<T> guarded(Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                bulkheadRejected.increment();
+                return Mono.error(new CallNotPermittedException("User service bulkhead full"));
+            }
+            if (!circuitBreaker.tryAcquirePermission()) {
+                bulkhead.release();
+                return Mono.error(new CallNotPermittedException("User service circuit breaker open"));
+            }
+            long start = System.nanoTime();
+            return request.get()
+                    .doOnSuccess(result -> circuitBreaker.onResult(System.nanoTime() - start, false))
+                    .doOnError(e -> {
+                        circuitBreaker.onResult(System.nanoTime() - start, isFailure(e));
+                        failed.increment();
+                    })
+                    .doOnCancel(circuitBreaker::release)
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    private static UpstreamException errorOf(ClientResponse response) {
+        int status = response.statusCode().value();
+        return new UpstreamException(status, "User service returned " + status,
+                RetryPolicy.retryAfter(response.headers().asHttpHeaders(), Instant.now()));
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Lookups currently holding a bulkhead slot.
+     */
+    public int getInFlight() {
+        return maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public void writeMetrics(PrometheusTextWriter writer) {
+        writer.counter("upstream_user_lookups_total", "User service lookups by outcome", found.sum(), "outcome", "found");
+        writer.counter("upstream_user_lookups_total", "User service lookups by outcome", notFound.sum(), "outcome", "not_found");
+        writer.counter("upstream_user_lookups_total", "User service lookups by outcome", failed.sum(), "outcome", "error");
+        writer.summary("upstream_user_lookup_duration_seconds", "Latency of answered user service lookups",
+                latency.snapshot());
+        writer.counter("upstream_user_bulk_lookups_total", "Answered bulk user service lookups", bulkLookups.sum());
+        writer.counter("upstream_user_bulk_lookup_ids_total", "User ids asked for in answered bulk lookups", bulkIds.sum());
+        writer.gauge("upstream_bulkhead_in_flight", "User service lookups in flight", getInFlight());
+        writer.counter("upstream_calls_not_permitted_total", "User service lookups refused locally",
+                bulkheadRejected.sum(), "reason", "bulkhead");
+        writer.counter("upstream_calls_not_permitted_total", "User service lookups refused locally",
+                circuitBreaker.getRejected(), "reason", "circuit_open");
+        CircuitBreaker.State state = circuitBreaker.getState();
+        for (CircuitBreaker.State candidate : CircuitBreaker.State.values()) {
+            writer.gauge("upstream_circuit_breaker_state", "Current user service circuit breaker state",
+                    candidate == state ? 1 : 0, "state", candidate.name().toLowerCase());
+        }
+        writer.counter("upstream_retries_total", "User service lookups retried", retryPolicy.getRetries());
+        writer.counter("upstream_retries_skipped_total", "Retryable failures not retried",
+                retryPolicy.getSkippedForDeadline(), "reason", "deadline");
+        writer.counter("upstream_retries_skipped_total", "Retryable failures not retried",
+                retryPolicy.getSkippedForBudget(), "reason", "budget");
+        writer.gauge("upstream_retry_budget", "Retries currently available", retryPolicy.getBudget());
+        if (hedgeEnabled) {
+            writer.counter("upstream_hedged_requests_total", "Second requests sent for slow lookups", hedges.sum());
+            writer.counter("upstream_hedge_wins_total", "Hedged requests that answered first", hedgeWins.sum());
+            writer.counter("upstream_hedge_losers_cancelled_total", "Requests cancelled because the other one answered first",
+                    hedgeLosersCancelled.sum());
+            writer.counter("upstream_hedges_skipped_total", "Slow lookups not hedged",
+                    hedgesSkippedForBudget.sum(), "reason", "budget");
+            writer.gauge("upstream_hedge_budget", "Hedges currently available", hedgeBudget.getBalance());
+            writer.gauge("upstream_hedge_delay_seconds", "Current delay before a lookup is hedged",
+                    Math.max(0, hedgeDelayNanos()) / 1e9);
+        }
+        writer.counter("upstream_circuit_breaker_opened_total", "Times the user service circuit breaker opened",
+                circuitBreaker.getOpened());
+    }
+
+    @PreDestroy
+    void close() {
+        connectionProvider.dispose();
+    }
+
+    private final class HedgedCall {
+
+        private final long id;
+        private final MonoSink<UserProfile> sink;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final AtomicInteger running = new AtomicInteger(1);
+        private final Disposable.Composite attempts = Disposables.composite();
+
+        HedgedCall(long id, MonoSink<UserProfile> sink) {
+            this.id = id;
+            this.sink = sink;
+            sink.onDispose(attempts);
+        }
+
+        void start(long delayNanos) {
+            attempts.add(send(false));
+            if (delayNanos >= 0) {
+                attempts.add(Mono.delay(Duration.ofNanos(delayNanos)).subscribe(tick -> {
+                    if (done.get()) {
+                        return;
+                    }
+                    if (!hedgeBudget.tryWithdraw()) {
+                        hedgesSkippedForBudget.increment();
+                        return;
+                    }
+                    running.incrementAndGet();
+                    hedges.increment();
+                    attempts.add(send(true));
+                }));
+            }
+        }
+
+        private Disposable send(boolean hedge) {
+            Mono<UserProfile> call = attempt(id).doOnCancel(() -> {
+                if (done.get()) {
+                    hedgeLosersCancelled.increment();
+                }
+            });
+            if (!hedge) {
+                long start = System.nanoTime();
+                call = call.doOnSuccess(profile -> hedgeDelay.record(System.nanoTime() - start))
+                        .doOnCancel(() -> hedgeDelay.record(System.nanoTime() - start));
+            }
+            return call.subscribe(profile -> answer(profile, hedge), this::fail, () -> answer(null, hedge));
+        }
+
+        private void answer(UserProfile profile, boolean hedge) {
+            if (done.compareAndSet(false, true)) {
+                if (hedge) {
+                    hedgeWins.increment();
+                }
+                if (profile != null) {
+                    sink.success(profile);
+                } else {
+                    sink.success();
+                }
+            }
+        }
+
+        private void fail(Throwable e) {
+            if (running.decrementAndGet() == 0 && done.compareAndSet(false, true)) {
+                sink.error(e);
+            }
+        }
+    }
+
+    private static boolean isFailure(Throwable e) {
+        return !(e instanceof UpstreamException upstream) || upstream.getStatus() >= 500;
+    }
+
+    private static ConnectionProvider connectionProvider(AppConfig.Upstream settings) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("user-service")
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime());
+        for (Map.Entry<String, Integer> host : settings.getMaxConnectionsPerHost().entrySet()) {
+            builder.forRemoteHost(remoteAddress(host.getKey()), spec -> spec.maxConnections(host.getValue()));
+        }
+        return builder.build();
+    }
+
+    private static InetSocketAddress remoteAddress(String hostAndPort) {
+        int colon = hostAndPort.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected host:port in app.upstream.max-connections-per-host: " + hostAndPort);
+        }
+        return InetSocketAddress.createUnresolved(hostAndPort.substring(0, colon),
+                Integer.parseInt(hostAndPort.substring(colon + 1)));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.fattest;
+
+/**
+ * A user as returned by the user service ({@code GET /api/users/{id}}).
+ */
+public record UserProfile(long id, String name, String email) {
+}
@@ -0,0 +1,140 @@
+package com.example.fattest;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache of user profiles in front of {@link UserLookupBatcher}.
+ * <p>
+ * Entries are fresh for {@code ttl}; for a further {@code stale-while-revalidate} they are still served
+ * while one background lookup refreshes them. Unknown users are cached for {@code negative-ttl}.
+ * Concurrent misses for the same user share a single upstream lookup. Failed lookups are not cached.
+ */
+@Component
+public class UserProfileCache implements MetricsContributor {
+
+    private static final Logger logger = LogManager.getLogger(UserProfileCache.class);
+
+    private final LongFunction<Mono<UserProfile>> loader;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier clock;
+
+    private final StripedLruCache<Long, Entry> cache;
+    private final ConcurrentMap<Long, Mono<Optional<UserProfile>>> loads = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    @Autowired
+    public UserProfileCache(UserLookupBatcher userLookupBatcher, AppConfig appConfig) {
+        this(userLookupBatcher::lookup, appConfig.getUpstream().getProfileCache(), System::nanoTime);
+    }
+
+    UserProfileCache(LongFunction<Mono<UserProfile>> loader, AppConfig.Upstream.ProfileCache settings, LongSupplier clock) {
+        this.loader = loader;
+        this.enabled = settings.isEnabled();
+        this.ttlNanos = settings.getTtl().toNanos();
+        this.staleNanos = settings.getStaleWhileRevalidate().toNanos();
+        this.negativeTtlNanos = settings.getNegativeTtl().toNanos();
+        this.clock = clock;
+        this.cache = new StripedLruCache<>(settings.getMaxEntries(), 16);
+    }
+
+    /**
+     * Looks up one user through the cache.
+     *
+     * @return the profile, empty if the user does not exist, or an error if it had to be loaded and that failed
+     */
+    public Mono<UserProfile> get(long id) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        return Mono.defer(() -> {
+            Entry entry = cache.get(id);
+            long now = clock.getAsLong();
+            if (entry != null && now < entry.freshUntil()) {
+                hits.increment();
+                return Mono.justOrEmpty(entry.profile());
+            }
+            if (entry != null && now < entry.staleUntil()) {
+                staleHits.increment();
+                load(id).subscribe(profile -> { }, e -> logger.debug("Refreshing user {} failed: {}", id, e.toString()));
+                return Mono.justOrEmpty(entry.profile());
+            }
+            misses.increment();
+            return load(id).flatMap(Mono::justOrEmpty);
+        });
+    }
+
+    public void invalidate(long id) {
+        cache.remove(id);
+    }
+
+    public StripedLruCache<Long, Entry> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void writeMetrics(PrometheusTextWriter writer) {
+        long fresh = hits.sum();
+        long stale = staleHits.sum();
+        long missed = misses.sum();
+        long total = fresh + stale + missed;
+        writer.counter("user_profile_cache_requests_total", "User profile cache lookups by result", fresh, "result", "hit");
+        writer.counter("user_profile_cache_requests_total", "User profile cache lookups by result", stale, "result", "stale");
+        writer.counter("user_profile_cache_requests_total", "User profile cache lookups by result", missed, "result", "miss");
+        writer.gauge("user_profile_cache_hit_ratio", "Share of lookups answered from the cache, stale included",
+                total == 0 ? 0 : (double) (fresh + stale) / total);
+        writer.summary("user_profile_cache_load_duration_seconds", "Latency of successful loads from the user service",
+                loadLatency.snapshot());
+        writer.counter("user_profile_cache_load_failures_total", "Loads from the user service that failed",
+                loadFailures.sum());
+        writer.counter("user_profile_cache_evictions_total", "User profiles evicted to stay within max-entries",
+                cache.getEvictionCount());
+        writer.gauge("user_profile_cache_entries", "User profiles currently cached", cache.size());
+    }
+
+    /**
+     * Starts a load for {@code id} or joins the one already running.
+     */
+    private Mono<Optional<UserProfile>> load(long id) {
+        return loads.computeIfAbsent(id, key -> {
+            long start = clock.getAsLong();
+            return loader.apply(id)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .doOnNext(profile -> {
+                        long now = clock.getAsLong();
+                        loadLatency.record(now - start);
+                        long freshUntil = now + (profile.isPresent() ? ttlNanos : negativeTtlNanos);
+                        long staleUntil = profile.isPresent() ? freshUntil + staleNanos : freshUntil;
+                        cache.put(id, new Entry(profile.orElse(null), freshUntil, staleUntil));
+                    })
+                    .doOnError(e -> loadFailures.increment())
+                    .doOnTerminate(() -> loads.remove(id))
+                    .cache();
+        });
+    }
+
+    /**
+     * Cached lookup result; {@code profile} is {@code null} for a user that does not exist.
+     */
+    public record Entry(UserProfile profile, long freshUntil, long staleUntil) {
+    }
+}
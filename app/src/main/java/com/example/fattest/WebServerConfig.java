@@ -0,0 +1,45 @@
+package com.example.fattest;
+
+import org.apache.coyote.ProtocolHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class WebServerConfig {
+
+    private static final Logger logger = LogManager.getLogger(WebServerConfig.class);
+
+    /**
+     * Switches Tomcat request handling to virtual threads when {@code app.runtime.threads=virtual}.
+     * In platform mode the default Tomcat pool is left untouched.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> threadModeCustomizer(AppConfig appConfig) {
+        return protocolHandler -> {
+            if (appConfig.getRuntime().getThreads() == AppConfig.ThreadMode.VIRTUAL) {
+                logger.info("Running request handlers on virtual threads");
+                protocolHandler.setExecutor(new VirtualThreadExecutor("tomcat-handler-"));
+            }
+        };
+    }
+
+    /**
+     * Tomcat is also on the classpath and Spring Boot would prefer it for reactive apps,
+     * so the reactive mode asks for the Netty event-loop server explicitly.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(ObjectProvider<NettyServerCustomizer> customizers) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.getServerCustomizers().addAll(customizers.orderedStream().toList());
+        return factory;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.fattest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    @Test
+    void doFilter_overClientRate_returns429WithRetryAfter() throws Exception {
+        AdmissionControlFilter filter = filter(1, 1, 10);
+
+        MockHttpServletResponse first = execute(filter, request("alice"), new MockFilterChain());
+        MockHttpServletResponse second = execute(filter, request("alice"), new MockFilterChain());
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+        assertEquals("1", second.getHeader("Retry-After"));
+        assertEquals("0", second.getHeader("X-RateLimit-Remaining"));
+        assertTrue(second.getContentAsString().contains("\"code\":\"RATE_LIMITED\""));
+    }
+
+    @Test
+    void doFilter_overConcurrencyLimit_shedsAndReleasesSlot() throws Exception {
+        AdmissionControlFilter filter = filter(1000, 100, 1);
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+
+        FilterChain blockingChain = (req, resp) -> nested[0] = execute(filter, request("bob"), new MockFilterChain());
+        MockHttpServletResponse outer = execute(filter, request("alice"), blockingChain);
+
+        assertEquals(200, outer.getStatus());
+        assertEquals(429, nested[0].getStatus());
+        assertTrue(nested[0].getContentAsString().contains("\"code\":\"OVERLOADED\""));
+        assertEquals(0, filter.getInFlight());
+    }
+
+    @Test
+    void doFilter_withoutTrustedHeader_limitsByRemoteAddress() throws Exception {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getAdmission().setRatePerClient(1);
+        appConfig.getAdmission().setBurst(1);
+        AdmissionControlFilter filter = new AdmissionControlFilter(appConfig);
+
+        MockHttpServletResponse first = execute(filter, request("alice"), new MockFilterChain());
+        MockHttpServletResponse renamed = execute(filter, request("alice-2"), new MockFilterChain());
+        MockHttpServletRequest otherAddress = request("alice-3");
+        otherAddress.setRemoteAddr("10.0.0.2");
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, renamed.getStatus(), "a new header value must not reset the limit");
+        assertEquals(200, execute(filter, otherAddress, new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void doFilter_metricsEndpoint_isNeverShed() throws Exception {
+        AdmissionControlFilter filter = filter(1, 1, 10);
+        execute(filter, request("alice"), new MockFilterChain());
+
+        MockHttpServletRequest scrape = request("alice");
+        scrape.setRequestURI("/metrics");
+
+        assertEquals(200, execute(filter, scrape, new MockFilterChain()).getStatus());
+    }
+
+    private static AdmissionControlFilter filter(double rate, int burst, int maxConcurrent) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getAdmission().setTrustedClientHeader("X-Client-Id");
+        appConfig.getAdmission().setRatePerClient(rate);
+        appConfig.getAdmission().setBurst(burst);
+        appConfig.getAdmission().setMaxConcurrent(maxConcurrent);
+        return new AdmissionControlFilter(appConfig);
+    }
+
+    private static MockHttpServletRequest request(String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/greet");
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+
+    private static MockHttpServletResponse execute(AdmissionControlFilter filter, MockHttpServletRequest request,
+                                                   FilterChain chain) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
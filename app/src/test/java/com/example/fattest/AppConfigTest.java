@@ -2,6 +2,8 @@ package com.example.fattest;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class AppConfigTest {
@@ -14,6 +16,17 @@ class AppConfigTest {
         assertEquals("Hello", config.getGreeting().getPrefix());
         assertEquals("!", config.getGreeting().getSuffix());
         assertTrue(config.getFeature().isEnabled());
+        assertEquals(AppConfig.ThreadMode.PLATFORM, config.getRuntime().getThreads());
+        assertTrue(config.getCache().isEnabled());
+        assertEquals(10_000, config.getCache().getMaxEntries());
+        assertTrue(config.getReload().isEnabled());
+        assertEquals("config", config.getReload().getDirectory());
+        assertEquals(CountingAsyncQueueFullPolicy.Mode.BLOCK, config.getLogging().getQueueFullPolicy());
+        assertTrue(config.getAdmission().isEnabled());
+        assertNull(config.getAdmission().getTrustedClientHeader());
+        assertEquals("http://localhost:8089", config.getUpstream().getBaseUrl());
+        assertEquals(Duration.ofSeconds(1), config.getUpstream().getReadTimeout());
+        assertEquals(50, config.getUpstream().getBreaker().getFailureRateThreshold());
     }
 
     @Test
@@ -45,4 +58,49 @@ class AppConfigTest {
 
         assertFalse(config.getFeature().isEnabled());
     }
+
+    @Test
+    void publish_bumpsVersionAndCapturesValues() {
+        AppConfig config = new AppConfig();
+        AppConfig.Snapshot first = config.snapshot();
+
+        AppConfig.Snapshot second = config.publish();
+
+        assertEquals(first.version() + 1, second.version());
+        assertSame(second, config.snapshot());
+    }
+
+    @Test
+    void setters_ofReloadableSettings_waitForPublish() {
+        AppConfig config = new AppConfig();
+        AppConfig.Snapshot first = config.snapshot();
+
+        config.getGreeting().setPrefix("Hi");
+        config.getGreeting().setSuffix("?");
+        assertSame(first, config.snapshot());
+
+        AppConfig.Snapshot second = config.publish();
+        assertEquals(first.version() + 1, second.version());
+        assertEquals("Hi", second.greetingPrefix());
+        assertEquals("?", second.greetingSuffix());
+    }
+
+    @Test
+    void apply_copiesReloadableSettingsOnly() {
+        AppConfig config = new AppConfig();
+        AppConfig source = new AppConfig();
+        source.setEnvironment("reloaded");
+        source.getGreeting().setPrefix("Hey");
+        source.getFeature().setEnabled(false);
+        source.getCache().setMaxEntries(5);
+
+        long before = config.snapshot().version();
+        AppConfig.Snapshot snapshot = config.apply(source);
+
+        assertEquals(before + 1, snapshot.version());
+        assertEquals("reloaded", snapshot.environment());
+        assertEquals("Hey", snapshot.greetingPrefix());
+        assertFalse(snapshot.featureEnabled());
+        assertEquals(10_000, config.getCache().getMaxEntries());
+    }
 }
@@ -0,0 +1,44 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArgsTest {
+
+    @Test
+    void stringArg_acceptsBothForms() {
+        assertEquals("dev3", Args.stringArg(new String[]{"--profile", "dev3"}, "--profile", null));
+        assertEquals("dev3", Args.stringArg(new String[]{"--profile=dev3"}, "--profile", null));
+        assertEquals("dev4", Args.stringArg(new String[]{"--profile=dev3", "--profile", "dev4"}, "--profile", null));
+    }
+
+    @Test
+    void stringArg_doesNotTakeTheNextOptionAsValue() {
+        assertEquals("default", Args.stringArg(new String[]{"--load", "--rate", "5"}, "--load", "default"));
+        assertNull(Args.stringArg(new String[]{"--profile"}, "--profile", null));
+        assertNull(Args.stringArg(new String[]{"--profiles=a,b"}, "--profile", null));
+    }
+
+    @Test
+    void has_seesOptionsWithAndWithoutValue() {
+        assertTrue(Args.has(new String[]{"--baseline"}, "--baseline"));
+        assertTrue(Args.has(new String[]{"--baseline=perf.properties"}, "--baseline"));
+        assertFalse(Args.has(new String[]{"--baselines"}, "--baseline"));
+    }
+
+    @Test
+    void intArg_parsesOrUsesDefault() {
+        assertEquals(4, Args.intArg(new String[]{"--threads", "4"}, "--threads", 0));
+        assertEquals(-1, Args.intArg(new String[]{"--port=-1"}, "--port", 0));
+        assertEquals(7, Args.intArg(new String[0], "--threads", 7));
+    }
+
+    @Test
+    void intArg_namesTheOptionInErrors() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Args.intArg(new String[]{"--threads", "foo"}, "--threads", 0));
+        assertEquals("--threads expects a whole number, got 'foo'", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Args.doubleArg(new String[]{"--rate=x"}, "--rate", 0));
+    }
+}
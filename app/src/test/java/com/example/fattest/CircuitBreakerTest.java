@@ -0,0 +1,136 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker("test", 10, 4, 50, 50, Duration.ofMillis(100), Duration.ofSeconds(1), 2, clock::get);
+    }
+
+    @Test
+    void onResult_opensOnFailureRate() {
+        CircuitBreaker breaker = breaker();
+
+        record(breaker, 10 * MILLIS, false);
+        record(breaker, 10 * MILLIS, true);
+        record(breaker, 10 * MILLIS, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        record(breaker, 10 * MILLIS, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1, breaker.getRejected());
+        assertEquals(1, breaker.getOpened());
+    }
+
+    @Test
+    void onResult_opensOnSlowCallRate() {
+        CircuitBreaker breaker = breaker();
+
+        for (int i = 0; i < 4; i++) {
+            record(breaker, i % 2 == 0 ? 200 * MILLIS : 10 * MILLIS, false);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void onResult_staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = breaker();
+
+        record(breaker, 10 * MILLIS, true);
+        record(breaker, 10 * MILLIS, true);
+        record(breaker, 10 * MILLIS, true);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void onResult_forgetsOutcomesOutsideWindow() {
+        CircuitBreaker breaker = breaker();
+
+        for (int i = 0; i < 4; i++) {
+            record(breaker, 10 * MILLIS, i < 2);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.addAndGet(1000 * MILLIS);
+        record(breaker, 10 * MILLIS, false);
+        record(breaker, 10 * MILLIS, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // 4 failures in a window of 10 with 6 successes stays below 50%
+        for (int i = 0; i < 6; i++) {
+            record(breaker, 10 * MILLIS, false);
+        }
+        for (int i = 0; i < 4; i++) {
+            record(breaker, 10 * MILLIS, true);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpen_closesAfterSuccessfulProbes() {
+        CircuitBreaker breaker = openBreaker();
+
+        clock.addAndGet(1000 * MILLIS);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+
+        breaker.onResult(10 * MILLIS, false);
+        breaker.onResult(10 * MILLIS, false);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void halfOpen_reopensAfterFailedProbes() {
+        CircuitBreaker breaker = openBreaker();
+
+        clock.addAndGet(1000 * MILLIS);
+        record(breaker, 10 * MILLIS, true);
+        record(breaker, 10 * MILLIS, false);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getOpened());
+    }
+
+    @Test
+    void release_returnsHalfOpenProbe() {
+        CircuitBreaker breaker = openBreaker();
+
+        clock.addAndGet(1000 * MILLIS);
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.release();
+
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    private CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            record(breaker, 10 * MILLIS, true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private static void record(CircuitBreaker breaker, long durationNanos, boolean failed) {
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onResult(durationNanos, failed);
+    }
+}
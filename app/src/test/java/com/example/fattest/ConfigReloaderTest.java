@@ -0,0 +1,71 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.FileUrlResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigReloaderTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void isFromDirectory_matchesSourcesLoadedFromFilesInTheDirectory() throws IOException {
+        Path config = Files.createDirectories(root.resolve("config"));
+        Path file = Files.writeString(config.resolve("application.yml"), "app:\n  environment: file\n");
+
+        PropertySource<?> fromFile = new YamlPropertySourceLoader().load("any name", new FileSystemResource(file)).get(0);
+        PropertySource<?> fromUrl = new YamlPropertySourceLoader().load("any name", new FileUrlResource(file.toUri().toURL())).get(0);
+
+        assertTrue(ConfigReloader.isFromDirectory(fromFile, config));
+        assertTrue(ConfigReloader.isFromDirectory(fromUrl, root.resolve("config/../config")));
+    }
+
+    @Test
+    void isFromDirectory_ignoresSameNamedDirectoriesAndOtherSources() throws IOException {
+        Path config = Files.createDirectories(root.resolve("config"));
+        Path other = Files.createDirectories(root.resolve("other/config"));
+        Path file = Files.writeString(other.resolve("application.yml"), "app:\n  environment: other\n");
+
+        PropertySource<?> fromOther = new YamlPropertySourceLoader().load("file [config/application.yml]",
+                new FileSystemResource(file)).get(0);
+
+        assertFalse(ConfigReloader.isFromDirectory(fromOther, config));
+        assertFalse(ConfigReloader.isFromDirectory(
+                new MapPropertySource("file [config/application.yml]", Map.of("app.environment", "x")), config));
+    }
+
+    @Test
+    void reload_keepsSystemPropertiesAheadOfTheFiles() throws IOException {
+        Path config = Files.createDirectories(root.resolve("config"));
+        Path file = Files.writeString(config.resolve("application.yml"),
+                "app:\n  environment: file\n  greeting:\n    prefix: Hi\n");
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addLast(
+                new YamlPropertySourceLoader().load("startup copy", new FileSystemResource(file)).get(0));
+        ConfigReloader reloader = new ConfigReloader(new AppConfig(), environment);
+
+        System.setProperty("app.greeting.prefix", "Override");
+        try {
+            Files.writeString(file, "app:\n  environment: reloaded\n  greeting:\n    prefix: Hey\n");
+            AppConfig.Snapshot snapshot = reloader.reload(config);
+
+            assertEquals("reloaded", snapshot.environment());
+            assertEquals("Override", snapshot.greetingPrefix());
+        } finally {
+            System.clearProperty("app.greeting.prefix");
+        }
+    }
+}
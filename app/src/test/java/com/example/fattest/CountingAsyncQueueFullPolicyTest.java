@@ -0,0 +1,71 @@
+package com.example.fattest;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.async.EventRoute;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountingAsyncQueueFullPolicyTest {
+
+    private static final long OTHER_THREAD = -1;
+
+    private final CountingAsyncQueueFullPolicy policy = new CountingAsyncQueueFullPolicy();
+
+    @AfterEach
+    void resetMode() {
+        CountingAsyncQueueFullPolicy.configure(CountingAsyncQueueFullPolicy.Mode.BLOCK, Level.INFO);
+    }
+
+    @Test
+    void block_enqueuesAndCountsBlockedEvent() {
+        long blocked = CountingAsyncQueueFullPolicy.getBlockedCount();
+
+        assertEquals(EventRoute.ENQUEUE, policy.getRoute(OTHER_THREAD, Level.DEBUG));
+        assertEquals(blocked + 1, CountingAsyncQueueFullPolicy.getBlockedCount());
+    }
+
+    @Test
+    void drop_discardsEveryLevel() {
+        CountingAsyncQueueFullPolicy.configure(CountingAsyncQueueFullPolicy.Mode.DROP, Level.INFO);
+        long dropped = CountingAsyncQueueFullPolicy.getDroppedCount();
+
+        assertEquals(EventRoute.DISCARD, policy.getRoute(OTHER_THREAD, Level.ERROR));
+        assertEquals(EventRoute.DISCARD, policy.getRoute(OTHER_THREAD, Level.DEBUG));
+        assertEquals(dropped + 2, CountingAsyncQueueFullPolicy.getDroppedCount());
+    }
+
+    @Test
+    void discardBelowLevel_keepsMoreSevereEvents() {
+        CountingAsyncQueueFullPolicy.configure(CountingAsyncQueueFullPolicy.Mode.DISCARD_BELOW_LEVEL, Level.INFO);
+
+        assertEquals(EventRoute.DISCARD, policy.getRoute(OTHER_THREAD, Level.DEBUG));
+        assertEquals(EventRoute.DISCARD, policy.getRoute(OTHER_THREAD, Level.INFO));
+        assertEquals(EventRoute.ENQUEUE, policy.getRoute(OTHER_THREAD, Level.WARN));
+    }
+
+    @Test
+    void appenderThread_logsSynchronously() {
+        CountingAsyncQueueFullPolicy.configure(CountingAsyncQueueFullPolicy.Mode.DROP, Level.INFO);
+
+        assertEquals(EventRoute.SYNCHRONOUS, policy.getRoute(Thread.currentThread().threadId(), Level.INFO));
+    }
+
+    @Test
+    void enqueued_countsSubmittedEventsThatWereNotDroppedOrLoggedSynchronously() {
+        AsyncLogEventCountingFilter filter = AsyncLogEventCountingFilter.createFilter();
+        long enqueued = CountingAsyncQueueFullPolicy.getEnqueuedCount();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Filter.Result.NEUTRAL, filter.filter((LogEvent) null));
+        }
+        CountingAsyncQueueFullPolicy.configure(CountingAsyncQueueFullPolicy.Mode.DROP, Level.INFO);
+        policy.getRoute(OTHER_THREAD, Level.INFO);
+        policy.getRoute(Thread.currentThread().threadId(), Level.INFO);
+
+        assertEquals(enqueued + 2, CountingAsyncQueueFullPolicy.getEnqueuedCount());
+    }
+}
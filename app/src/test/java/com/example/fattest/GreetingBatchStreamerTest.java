@@ -0,0 +1,140 @@
+package com.example.fattest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreetingBatchStreamerTest {
+
+    private GreetingBatchStreamer streamer;
+
+    @BeforeEach
+    void setUp() {
+        streamer = new GreetingBatchStreamer(new GreetingService(new AppConfig()), new ObjectMapper());
+    }
+
+    @Test
+    void stream_withJsonArray_writesOneLinePerName() throws IOException {
+        String result = stream("[\"Alice\", \"Bob\", null]", MediaType.APPLICATION_JSON);
+
+        assertEquals("""
+                {"name":"Alice","greeting":"Hello, Alice!"}
+                {"name":"Bob","greeting":"Hello, Bob!"}
+                {"name":null,"greeting":"Hello, World!"}
+                """, result);
+    }
+
+    @Test
+    void stream_withNdjsonStrings_writesOneLinePerName() throws IOException {
+        String result = stream("\"Alice\"\n\"Bob\"\n", MediaType.APPLICATION_NDJSON);
+
+        assertEquals("""
+                {"name":"Alice","greeting":"Hello, Alice!"}
+                {"name":"Bob","greeting":"Hello, Bob!"}
+                """, result);
+    }
+
+    @Test
+    void stream_withPlainTextLines_skipsBlankLines() throws IOException {
+        String result = stream("Alice\n\n  Bob  \n", MediaType.TEXT_PLAIN);
+
+        assertEquals("""
+                {"name":"Alice","greeting":"Hello, Alice!"}
+                {"name":"Bob","greeting":"Hello, Bob!"}
+                """, result);
+    }
+
+    @Test
+    void stream_withMalformedInput_endsWithErrorLine() throws IOException {
+        String result = stream("[\"Alice\", {\"name\": \"Bob\"}]", MediaType.APPLICATION_JSON);
+
+        String[] lines = result.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"name\":\"Alice\",\"greeting\":\"Hello, Alice!\"}", lines[0]);
+        assertTrue(lines[1].startsWith("{\"error\":"), lines[1]);
+    }
+
+    @Test
+    void stream_withLargeInput_doesNotBufferWholeRequest() throws IOException {
+        int names = 100_000;
+        InputStream in = new GeneratedNamesStream(names);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = streamer.stream(in, MediaType.TEXT_PLAIN, out);
+
+        assertEquals(names, count);
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("{\"name\":\"user99999\",\"greeting\":\"Hello, user99999!\"}\n"));
+    }
+
+    @Test
+    void stream_flushesGreetingsBeforeWaitingForMoreInput() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // Hands out one line per read, with nothing available in between, like a client typing names
+        InputStream in = new InputStream() {
+            private final String[] lines = {"Alice\n", "Bob\n"};
+            private int next;
+
+            @Override
+            public int read() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (next == 1) {
+                    assertEquals("{\"name\":\"Alice\",\"greeting\":\"Hello, Alice!\"}\n",
+                            out.toString(StandardCharsets.UTF_8), "Alice's greeting before reading Bob");
+                }
+                if (next == lines.length) {
+                    return -1;
+                }
+                byte[] line = lines[next++].getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(line, 0, b, off, line.length);
+                return line.length;
+            }
+        };
+
+        assertEquals(2, streamer.stream(in, MediaType.TEXT_PLAIN, out));
+    }
+
+    private String stream(String body, MediaType contentType) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamer.stream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), contentType, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Produces "user0\nuser1\n..." lazily so the input never exists as a whole.
+     */
+    private static class GeneratedNamesStream extends InputStream {
+        private final int total;
+        private int next;
+        private byte[] current = new byte[0];
+        private int pos;
+
+        GeneratedNamesStream(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public int read() {
+            if (pos == current.length) {
+                if (next == total) {
+                    return -1;
+                }
+                current = ("user" + next++ + "\n").getBytes(StandardCharsets.UTF_8);
+                pos = 0;
+            }
+            return current[pos++];
+        }
+    }
+}
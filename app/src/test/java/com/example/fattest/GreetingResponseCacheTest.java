@@ -0,0 +1,82 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreetingResponseCacheTest {
+
+    private AppConfig appConfig;
+    private GreetingResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        responseCache = new GreetingResponseCache(new GreetingService(appConfig), appConfig);
+    }
+
+    @Test
+    void get_returnsRenderedBodyAndEtag() {
+        GreetingResponseCache.CachedGreeting greeting = responseCache.get("John");
+
+        assertEquals("Hello, John!", new String(greeting.body(), StandardCharsets.UTF_8));
+        assertTrue(greeting.etag().startsWith("\"0") && greeting.etag().endsWith("\""), greeting.etag());
+    }
+
+    @Test
+    void get_sameName_isServedFromCache() {
+        GreetingResponseCache.CachedGreeting first = responseCache.get("John");
+        GreetingResponseCache.CachedGreeting second = responseCache.get("John");
+
+        assertSame(first, second);
+        assertEquals(1, responseCache.getCache().getHitCount());
+    }
+
+    @Test
+    void get_blankNames_shareDefaultEntry() {
+        GreetingResponseCache.CachedGreeting fromNull = responseCache.get(null);
+        GreetingResponseCache.CachedGreeting fromBlank = responseCache.get("  ");
+
+        assertSame(fromNull, fromBlank);
+        assertEquals("Hello, World!", new String(fromNull.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void get_afterGreetingConfigChange_flushesCache() {
+        GreetingResponseCache.CachedGreeting before = responseCache.get("John");
+
+        appConfig.getGreeting().setPrefix("Hi");
+        appConfig.publish();
+        GreetingResponseCache.CachedGreeting after = responseCache.get("John");
+
+        assertEquals("Hi, John!", new String(after.body(), StandardCharsets.UTF_8));
+        assertNotEquals(before.etag(), after.etag());
+        assertEquals(1, responseCache.getCache().size());
+    }
+
+    @Test
+    void get_withVeryLongName_bypassesCache() {
+        String name = "x".repeat(GreetingResponseCache.MAX_CACHED_NAME_LENGTH + 1);
+
+        responseCache.get(name);
+
+        assertEquals(0, responseCache.getCache().size());
+    }
+
+    @Test
+    void matches_comparesIfNoneMatchWeakly() {
+        GreetingResponseCache.CachedGreeting greeting = responseCache.get("John");
+        String etag = greeting.etag();
+
+        assertTrue(greeting.matches(etag));
+        assertTrue(greeting.matches("W/" + etag));
+        assertTrue(greeting.matches("\"other\", " + etag));
+        assertTrue(greeting.matches(" * "));
+        assertFalse(greeting.matches(null));
+        assertFalse(greeting.matches("\"other\""));
+        assertFalse(greeting.matches(responseCache.get("Jane").etag()));
+    }
+}
@@ -48,6 +48,7 @@ class GreetingServiceTest {
     void greet_withCustomPrefixAndSuffix_returnsCustomGreeting() {
         appConfig.getGreeting().setPrefix("Hi");
         appConfig.getGreeting().setSuffix("!!!");
+        appConfig.publish();
 
         String result = greetingService.greet("Alice");
         assertEquals("Hi, Alice!!!", result);
@@ -66,6 +67,7 @@ class GreetingServiceTest {
     @Test
     void isFeatureEnabled_whenDisabled_returnsFalse() {
         appConfig.getFeature().setEnabled(false);
+        appConfig.publish();
         assertFalse(greetingService.isFeatureEnabled());
     }
 }
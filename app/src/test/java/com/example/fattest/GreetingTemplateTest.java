@@ -0,0 +1,99 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreetingTemplateTest {
+
+    private final GreetingTemplate template = new GreetingTemplate("Hello", "!");
+
+    @Test
+    void render_withName_returnsGreeting() {
+        assertEquals("Hello, John!", template.render("John"));
+    }
+
+    @Test
+    void render_withBlankName_returnsDefaultGreeting() {
+        assertEquals("Hello, World!", template.render(null));
+        assertEquals("Hello, World!", template.render("  "));
+    }
+
+    @Test
+    void writeTo_withName_writesUtf8Greeting() throws IOException {
+        assertEquals("Hello, John!", write("John"));
+    }
+
+    @Test
+    void writeTo_withBlankName_writesDefaultGreeting() throws IOException {
+        assertEquals("Hello, World!", write(""));
+    }
+
+    @Test
+    void writeTo_withNonAsciiName_matchesStringEncoding() throws IOException {
+        String[] names = {"Zoë", "Łukasz", "李雷", "Emoji 😀", "broken \uD800 surrogate", "x".repeat(1000)};
+        for (String name : names) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            template.writeTo(name, out);
+            assertArrayEquals(("Hello, " + name + "!").getBytes(StandardCharsets.UTF_8), out.toByteArray(), name);
+        }
+    }
+
+    @Test
+    void writeTo_onVirtualThread_matchesStringEncoding() throws Exception {
+        String[] names = {"John", "Zoë", "李雷", "Emoji 😀", "x".repeat(1000), "😀".repeat(300), "a" + "😀".repeat(300)};
+        for (String name : names) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Thread thread = Thread.ofVirtual().start(() -> {
+                try {
+                    template.writeTo(name, out);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            thread.join();
+            assertArrayEquals(("Hello, " + name + "!").getBytes(StandardCharsets.UTF_8), out.toByteArray(), name);
+        }
+    }
+
+    @Test
+    void getVersion_returnsConfigSnapshotVersion() {
+        assertEquals(0, new GreetingTemplate("Hi", "?").getVersion());
+        assertEquals(7, new GreetingTemplate(7, "Hi", "?").getVersion());
+    }
+
+    @Test
+    void writeTo_hotPath_isNearlyAllocationFree() throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        OutputStream sink = OutputStream.nullOutputStream();
+        String[] names = {"Alice", "Bob", "Zoë", ""};
+        int iterations = 200_000;
+
+        for (int i = 0; i < iterations; i++) {
+            template.writeTo(names[i & 3], sink);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            template.writeTo(names[i & 3], sink);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        double perRequest = (double) allocated / iterations;
+        System.out.printf("GreetingTemplate.writeTo allocated %d bytes over %d calls (%.3f bytes/call)%n",
+                allocated, iterations, perRequest);
+        assertTrue(perRequest < 1.0, "Hot path should be close to zero-garbage, was " + perRequest + " bytes/call");
+    }
+
+    private String write(String name) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        template.writeTo(name, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgeDelayTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private HedgeDelay delay() {
+        return new HedgeDelay(50, Duration.ofMillis(5), 10, Duration.ofSeconds(1), clock::get);
+    }
+
+    @Test
+    void currentNanos_waitsForWindowAndMinSamples() {
+        HedgeDelay delay = delay();
+
+        record(delay, 10, 20 * MILLIS);
+        assertEquals(-1, delay.currentNanos());
+
+        clock.addAndGet(1000 * MILLIS);
+        assertEquals(20 * MILLIS, delay.currentNanos(), 20 * MILLIS * 0.04);
+    }
+
+    @Test
+    void currentNanos_keepsWindowOpenUntilMinSamples() {
+        HedgeDelay delay = delay();
+
+        record(delay, 9, 20 * MILLIS);
+        clock.addAndGet(5000 * MILLIS);
+        assertEquals(-1, delay.currentNanos());
+
+        record(delay, 1, 20 * MILLIS);
+        assertTrue(delay.currentNanos() > 0);
+    }
+
+    @Test
+    void currentNanos_followsSlowerUpstream() {
+        HedgeDelay delay = delay();
+        record(delay, 10, 20 * MILLIS);
+        clock.addAndGet(1000 * MILLIS);
+        delay.currentNanos();
+
+        record(delay, 10, 200 * MILLIS);
+        assertEquals(20 * MILLIS, delay.currentNanos(), 20 * MILLIS * 0.04);
+
+        clock.addAndGet(1000 * MILLIS);
+        assertEquals(200 * MILLIS, delay.currentNanos(), 200 * MILLIS * 0.04);
+    }
+
+    @Test
+    void currentNanos_neverBelowMinDelay() {
+        HedgeDelay delay = delay();
+
+        record(delay, 10, MILLIS);
+        clock.addAndGet(1000 * MILLIS);
+
+        assertEquals(5 * MILLIS, delay.currentNanos());
+    }
+
+    private static void record(HedgeDelay delay, int samples, long nanos) {
+        for (int i = 0; i < samples; i++) {
+            delay.record(nanos);
+        }
+    }
+}
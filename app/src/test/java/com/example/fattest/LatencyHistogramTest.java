@@ -0,0 +1,102 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void indexOf_roundTripsWithinBucketBounds() {
+        long[] values = {0, 1, 31, 32, 63, 64, 1_000, 123_456, 10_000_000_000L, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowestValueAt(index) <= value, "lowest for " + value);
+            assertTrue(LatencyHistogram.highestValueAt(index) >= value, "highest for " + value);
+        }
+    }
+
+    @Test
+    void valueAtPercentile_isWithinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(100_000_000, snapshot.getMax());
+        assertEquals(50_000_000, snapshot.valueAtPercentile(50), 50_000_000 * 0.03);
+        assertEquals(99_000_000, snapshot.valueAtPercentile(99), 99_000_000 * 0.03);
+        assertEquals(99_900_000, snapshot.valueAtPercentile(99.9), 99_900_000 * 0.03);
+        assertEquals(100_000_000, snapshot.valueAtPercentile(100));
+    }
+
+    @Test
+    void recordWithExpectedInterval_backfillsStalledSamples() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.recordWithExpectedInterval(1_000, 100);
+        histogram.recordWithExpectedInterval(50, 100);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(11, snapshot.getCount());
+        assertEquals(1_000, snapshot.getMax());
+        assertEquals(100, snapshot.valueAtPercentile(10), 100 * 0.03);
+    }
+
+    @Test
+    void snapshot_ofEmptyHistogram_isZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.valueAtPercentile(99));
+    }
+
+    @Test
+    void record_fromManyThreads_losesNoCounts() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(ThreadLocalRandom.current().nextLong(1, 1_000_000));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(400_000, histogram.snapshot().getCount());
+    }
+
+    @Test
+    void record_overhead_isNegligibleAndAllocationFree() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        LatencyHistogram histogram = new LatencyHistogram();
+        int iterations = 2_000_000;
+
+        for (int i = 0; i < iterations; i++) {
+            histogram.record(i & 0xFFFFF);
+        }
+
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            histogram.record(i & 0xFFFFF);
+        }
+        double nanosPerRecord = (double) (System.nanoTime() - start) / iterations;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        System.out.printf("LatencyHistogram.record: %.1f ns/op, %d bytes allocated over %d calls%n",
+                nanosPerRecord, allocated, iterations);
+        assertEquals(0, allocated, "Recording must not allocate");
+        assertTrue(nanosPerRecord < 1_000, "Recording took " + nanosPerRecord + " ns/op");
+    }
+}
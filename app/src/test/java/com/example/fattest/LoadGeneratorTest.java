@@ -0,0 +1,70 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    @Test
+    void parse_withoutOptions_runsClosedLoopAgainstLocalGreet() {
+        LoadGenerator.Options options = LoadGenerator.Options.parse(new String[]{"--load"});
+
+        assertEquals(URI.create("http://localhost:8080/greet"), options.target());
+        assertFalse(options.isOpenLoop());
+        assertEquals(16, options.concurrency());
+        assertEquals(Duration.ofSeconds(30), options.duration());
+        assertEquals(Duration.ofSeconds(5), options.warmup());
+        assertEquals(Duration.ofSeconds(10), options.timeout());
+        assertEquals(1.0, options.maxErrorPercent());
+        assertNull(options.maxP99());
+    }
+
+    @Test
+    void parse_withRate_runsOpenLoopAndParsesDurations() {
+        LoadGenerator.Options options = LoadGenerator.Options.parse(new String[]{
+                "--load=http://host:9000/greet?name=x", "--rate", "250.5", "--duration", "2m",
+                "--warmup=500ms", "--timeout", "PT3S", "--max-error-percent", "0.5", "--max-p99", "40ms"});
+
+        assertEquals(URI.create("http://host:9000/greet?name=x"), options.target());
+        assertTrue(options.isOpenLoop());
+        assertEquals(250.5, options.rate());
+        assertEquals(0, options.concurrency());
+        assertEquals(Duration.ofMinutes(2), options.duration());
+        assertEquals(Duration.ofMillis(500), options.warmup());
+        assertEquals(Duration.ofSeconds(3), options.timeout());
+        assertEquals(0.5, options.maxErrorPercent());
+        assertEquals(Duration.ofMillis(40), options.maxP99());
+    }
+
+    @Test
+    void parse_withRateAndConcurrency_isRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> LoadGenerator.Options.parse(new String[]{"--load", "--rate", "100", "--concurrency", "8"}));
+        assertThrows(IllegalArgumentException.class,
+                () -> LoadGenerator.Options.parse(new String[]{"--load", "--concurrency", "0"}));
+    }
+
+    @Test
+    void scheduledOffsetNanos_spacesRequestsEvenlyWithoutDrift() {
+        assertEquals(0, LoadGenerator.scheduledOffsetNanos(0, 500));
+        assertEquals(2_000_000, LoadGenerator.scheduledOffsetNanos(1, 500));
+        // 1/3 s does not divide into whole nanoseconds; the schedule still lands on the second
+        assertEquals(1_000_000_000, LoadGenerator.scheduledOffsetNanos(3, 3));
+        assertEquals(3_600_000_000_000L, LoadGenerator.scheduledOffsetNanos(3 * 3_600, 3), 1);
+        assertEquals(1_000, LoadGenerator.scheduledOffsetNanos(1_000, 1e9));
+    }
+
+    @Test
+    void recordedLatency_chargesTimeoutsAtLeastTheTimeout() {
+        Duration timeout = Duration.ofSeconds(2);
+
+        assertEquals(5_000_000, LoadGenerator.recordedLatency(5_000_000, LoadGenerator.Outcome.OK, timeout));
+        assertEquals(5_000_000, LoadGenerator.recordedLatency(5_000_000, LoadGenerator.Outcome.ERROR, timeout));
+        assertEquals(2_000_000_000, LoadGenerator.recordedLatency(1_999_000_000, LoadGenerator.Outcome.TIMEOUT, timeout));
+        assertEquals(2_500_000_000L, LoadGenerator.recordedLatency(2_500_000_000L, LoadGenerator.Outcome.TIMEOUT, timeout));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileMatrixTest {
+
+    @Test
+    void forkArgs_dropsOptionsDecidedPerFork() {
+        List<String> forkArgs = ProfileMatrix.forkArgs(new String[]{
+                "--profiles", "default,dev3", "--forks=2", "--threads", "2", "--report-dir", "reports"});
+
+        assertEquals(List.of("--threads", "2"), forkArgs);
+    }
+
+    @Test
+    void forkArgs_keepsTheNextOptionAfterAValuelessOne() {
+        List<String> forkArgs = ProfileMatrix.forkArgs(new String[]{"--forks", "--warm-contexts", "--report-dir"});
+
+        assertEquals(List.of("--warm-contexts"), forkArgs);
+    }
+
+    @Test
+    void parseProfiles_dropsBlanksAndDuplicates() {
+        assertEquals(List.of("default", "dev3"),
+                ProfileMatrix.parseProfiles(new String[]{"--profiles", "default, ,dev3,default"}));
+    }
+}
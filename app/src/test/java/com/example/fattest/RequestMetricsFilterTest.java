@@ -0,0 +1,45 @@
+package com.example.fattest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestMetricsFilterTest {
+
+    private final RequestMetrics metrics = new RequestMetrics();
+    private final RequestMetricsFilter filter = new RequestMetricsFilter(metrics);
+
+    @Test
+    void doFilter_recordsStatusAgainstPattern() throws Exception {
+        FilterChain chain = (req, resp) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/greet");
+            ((MockHttpServletResponse) resp).setStatus(503);
+        };
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/greet"), new MockHttpServletResponse(), chain);
+
+        assertEquals(1, metrics.get("/greet").getRequestCount());
+        assertEquals(1, metrics.get("/greet").getServerErrorCount());
+    }
+
+    @Test
+    void doFilter_whenHandlerThrows_recordsServerError() {
+        FilterChain chain = (req, resp) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/greet");
+            throw new ServletException("handler failed", new IllegalStateException("boom"));
+        };
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThrows(ServletException.class,
+                () -> filter.doFilter(new MockHttpServletRequest("GET", "/greet"), response, chain));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(1, metrics.get("/greet").getRequestCount());
+        assertEquals(1, metrics.get("/greet").getServerErrorCount());
+    }
+}
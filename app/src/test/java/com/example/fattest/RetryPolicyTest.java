@@ -0,0 +1,140 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private static final long MILLIS = 1_000_000;
+    private static final long REMAINING = 10_000 * MILLIS;
+
+    private static AppConfig.Upstream.Retry settings() {
+        AppConfig.Upstream.Retry settings = new AppConfig.Upstream.Retry();
+        settings.setMaxAttempts(4);
+        settings.setInitialBackoff(Duration.ofMillis(100));
+        settings.setMaxBackoff(Duration.ofMillis(300));
+        settings.setMultiplier(2);
+        return settings;
+    }
+
+    @Test
+    void retryDelay_backsOffExponentiallyUpToMax() {
+        RetryPolicy policy = new RetryPolicy(settings(), () -> 0);
+        UpstreamException failure = new UpstreamException(503, "down");
+
+        assertEquals(100 * MILLIS, policy.retryDelay(failure, 1, REMAINING));
+        assertEquals(200 * MILLIS, policy.retryDelay(failure, 2, REMAINING));
+        assertEquals(300 * MILLIS, policy.retryDelay(failure, 3, REMAINING));
+        assertEquals(-1, policy.retryDelay(failure, 4, REMAINING));
+        assertEquals(3, policy.getRetries());
+    }
+
+    @Test
+    void backoff_appliesJitter() {
+        RetryPolicy policy = new RetryPolicy(settings(), () -> 1);
+
+        assertEquals(50 * MILLIS, policy.backoff(1));
+    }
+
+    @Test
+    void retryDelay_honorsRetryAfter() {
+        RetryPolicy policy = new RetryPolicy(settings(), () -> 0);
+
+        long delay = policy.retryDelay(new UpstreamException(429, "slow down", Duration.ofSeconds(1)), 1, REMAINING);
+
+        assertEquals(1000 * MILLIS, delay);
+    }
+
+    @Test
+    void retryDelay_givesUpWhenWaitPassesDeadline() {
+        RetryPolicy policy = new RetryPolicy(settings(), () -> 0);
+
+        long delay = policy.retryDelay(new UpstreamException(503, "maintenance", Duration.ofHours(1)), 1, REMAINING);
+
+        assertEquals(-1, delay);
+        assertEquals(1, policy.getSkippedForDeadline());
+    }
+
+    @Test
+    void retryDelay_neverRetriesClientErrorsOrRefusedCalls() {
+        RetryPolicy policy = new RetryPolicy(settings(), () -> 0);
+
+        assertEquals(-1, policy.retryDelay(new UpstreamException(400, "bad request"), 1, REMAINING));
+        assertEquals(-1, policy.retryDelay(new UpstreamException(401, "unauthorized"), 1, REMAINING));
+        assertEquals(-1, policy.retryDelay(new UpstreamException(403, "forbidden"), 1, REMAINING));
+        assertEquals(-1, policy.retryDelay(new CallNotPermittedException("open"), 1, REMAINING));
+        assertEquals(0, policy.getRetries());
+    }
+
+    @Test
+    void retryDelay_stopsWhenBudgetIsSpent() {
+        AppConfig.Upstream.Retry settings = settings();
+        settings.setBudgetReserve(2);
+        RetryPolicy policy = new RetryPolicy(settings, () -> 0);
+        UpstreamException failure = new UpstreamException(503, "down");
+
+        assertTrue(policy.retryDelay(failure, 1, REMAINING) > 0);
+        assertTrue(policy.retryDelay(failure, 1, REMAINING) > 0);
+        assertEquals(-1, policy.retryDelay(failure, 1, REMAINING));
+        assertEquals(1, policy.getSkippedForBudget());
+    }
+
+    @Test
+    void apply_earnsBudgetFromCalls() {
+        AppConfig.Upstream.Retry settings = settings();
+        settings.setBudgetReserve(1);
+        settings.setBudgetRatio(0.5);
+        RetryPolicy policy = new RetryPolicy(settings, () -> 0);
+        UpstreamException failure = new UpstreamException(503, "down");
+
+        assertTrue(policy.retryDelay(failure, 1, REMAINING) > 0);
+        policy.apply(Mono.just("ok"), HttpMethod.GET).block();
+        assertEquals(0.5, policy.getBudget());
+        policy.apply(Mono.just("ok"), HttpMethod.GET).block();
+
+        assertTrue(policy.retryDelay(failure, 1, REMAINING) > 0);
+    }
+
+    @Test
+    void apply_retriesIdempotentCallsOnly() {
+        AppConfig.Upstream.Retry settings = settings();
+        settings.setInitialBackoff(Duration.ofMillis(1));
+        RetryPolicy policy = new RetryPolicy(settings, () -> 0);
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() < 3
+                ? Mono.error(new UpstreamException(502, "bad gateway"))
+                : Mono.just("ok"));
+
+        assertEquals("ok", policy.apply(call, HttpMethod.GET).block());
+        assertEquals(3, attempts.get());
+
+        attempts.set(0);
+        assertThrows(UpstreamException.class, () -> policy.apply(call, HttpMethod.POST).block());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void retryAfter_readsSecondsDatesAndRateLimitReset() {
+        Instant now = Instant.parse("2024-01-01T00:00:00Z");
+        HttpHeaders seconds = new HttpHeaders();
+        seconds.set(HttpHeaders.RETRY_AFTER, "60");
+        HttpHeaders date = new HttpHeaders();
+        date.set(HttpHeaders.RETRY_AFTER, "Mon, 01 Jan 2024 00:00:30 GMT");
+        HttpHeaders reset = new HttpHeaders();
+        reset.set("X-RateLimit-Remaining", "0");
+        reset.set("X-RateLimit-Reset", Long.toString(now.getEpochSecond() + 5));
+
+        assertEquals(Duration.ofSeconds(60), RetryPolicy.retryAfter(seconds, now));
+        assertEquals(Duration.ofSeconds(30), RetryPolicy.retryAfter(date, now));
+        assertEquals(Duration.ofSeconds(5), RetryPolicy.retryAfter(reset, now));
+        assertNull(RetryPolicy.retryAfter(new HttpHeaders(), now));
+    }
+}
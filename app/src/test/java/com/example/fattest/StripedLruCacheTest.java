@@ -0,0 +1,70 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLruCacheTest {
+
+    @Test
+    void get_countsHitsAndMisses() {
+        StripedLruCache<String, String> cache = new StripedLruCache<>(10, 4);
+        cache.put("a", "A");
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void put_overCapacity_evictsLeastRecentlyUsed() {
+        StripedLruCache<String, String> cache = new StripedLruCache<>(2, 1);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a");
+        cache.put("c", "C");
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void size_neverExceedsMaxEntries() {
+        StripedLruCache<Integer, Integer> cache = new StripedLruCache<>(100, 16);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+
+        assertTrue(cache.size() <= 100, "size was " + cache.size());
+        assertEquals(10_000 - cache.size(), cache.getEvictionCount());
+    }
+
+    @Test
+    void getWithLoader_loadsOnlyOnMiss() {
+        StripedLruCache<String, String> cache = new StripedLruCache<>(10, 4);
+        int[] loads = {0};
+
+        cache.get("a", key -> { loads[0]++; return key.toUpperCase(); });
+        String value = cache.get("a", key -> { loads[0]++; return key.toUpperCase(); });
+
+        assertEquals("A", value);
+        assertEquals(1, loads[0]);
+    }
+
+    @Test
+    void clear_removesAllEntries() {
+        StripedLruCache<String, String> cache = new StripedLruCache<>(10, 4);
+        cache.put("a", "A");
+        cache.put("b", "B");
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedRateLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    @Test
+    void tryAcquire_admitsBurstThenRejects() {
+        StripedRateLimiter limiter = new StripedRateLimiter(10, 3, 64);
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.tryAcquire("client", now));
+        assertEquals(0, limiter.tryAcquire("client", now));
+        assertEquals(0, limiter.tryAcquire("client", now));
+
+        long wait = limiter.tryAcquire("client", now);
+        assertEquals(100 * MILLIS, wait);
+        assertEquals(0, limiter.remaining("client", now));
+    }
+
+    @Test
+    void tryAcquire_refillsAtConfiguredRate() {
+        StripedRateLimiter limiter = new StripedRateLimiter(10, 1, 64);
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.tryAcquire("client", now));
+        assertTrue(limiter.tryAcquire("client", now + 50 * MILLIS) > 0);
+        assertEquals(0, limiter.tryAcquire("client", now + 100 * MILLIS));
+    }
+
+    @Test
+    void tryAcquire_keepsClientsIndependent() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1, 1, 1024);
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.tryAcquire("alice", now));
+        assertTrue(limiter.tryAcquire("alice", now) > 0);
+        assertEquals(0, limiter.tryAcquire("bob", now));
+    }
+
+    @Test
+    void remaining_countsDownWithinBurst() {
+        StripedRateLimiter limiter = new StripedRateLimiter(10, 5, 64);
+        long now = System.nanoTime();
+
+        assertEquals(5, limiter.remaining("client", now));
+        limiter.tryAcquire("client", now);
+        limiter.tryAcquire("client", now);
+        assertEquals(3, limiter.remaining("client", now));
+    }
+}
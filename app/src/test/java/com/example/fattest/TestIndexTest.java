@@ -0,0 +1,39 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestIndexTest {
+
+    private static final TestIndex INDEX = index(
+            new TestIndex.Entry("com.example.WireMockIT", Set.of(), 2),
+            new TestIndex.Entry("com.example.HedgingIT", Set.of(), 2),
+            new TestIndex.Entry("com.example.CsvDataIT", Set.of(), 1),
+            new TestIndex.Entry("com.example.ArgsTest", Set.of(), null));
+
+    @Test
+    void contextGroupName_isTheFirstClassOfTheGroupAlphabetically() {
+        assertEquals("com.example.HedgingIT", INDEX.contextGroupName("com.example.WireMockIT"));
+        assertEquals("com.example.HedgingIT", INDEX.contextGroupName("com.example.HedgingIT"));
+        assertEquals("com.example.CsvDataIT", INDEX.contextGroupName("com.example.CsvDataIT"));
+    }
+
+    @Test
+    void contextGroupName_isNullWithoutSpringContextOrIndexEntry() {
+        assertNull(INDEX.contextGroupName("com.example.ArgsTest"));
+        assertNull(INDEX.contextGroupName("com.example.UnknownIT"));
+    }
+
+    private static TestIndex index(TestIndex.Entry... entries) {
+        Map<String, TestIndex.Entry> byName = new LinkedHashMap<>();
+        for (TestIndex.Entry entry : entries) {
+            byName.put(entry.className(), entry);
+        }
+        return new TestIndex(byName);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestShardsTest {
+
+    private static final List<Class<?>> CLASSES = List.of(
+            String.class, Integer.class, Long.class, Double.class, Short.class, Byte.class);
+
+    @Test
+    void plan_balancesByRecordedDurations() {
+        Map<String, Long> timings = Map.of(
+                String.class.getName(), 30_000L,
+                Integer.class.getName(), 20_000L,
+                Long.class.getName(), 10_000L,
+                Double.class.getName(), 10_000L,
+                Short.class.getName(), 5_000L,
+                Byte.class.getName(), 5_000L);
+
+        List<List<Class<?>>> plan = TestShards.plan(CLASSES, 2, timings);
+
+        assertEquals(List.of(String.class, Long.class), plan.get(0));
+        assertEquals(List.of(Integer.class, Double.class, Short.class, Byte.class), plan.get(1));
+    }
+
+    @Test
+    void plan_splitsByClassCountWithoutHistory() {
+        List<List<Class<?>>> plan = TestShards.plan(CLASSES, 4, Map.of());
+
+        assertEquals(List.of(2, 2, 1, 1), plan.stream().map(List::size).toList());
+        assertEquals(CLASSES.size(), plan.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void plan_treatsNewClassesAsMedianDuration() {
+        Map<String, Long> timings = Map.of(
+                String.class.getName(), 9_000L,
+                Integer.class.getName(), 1_000L,
+                Long.class.getName(), 1_000L);
+
+        List<List<Class<?>>> plan = TestShards.plan(List.of(String.class, Integer.class, Long.class, Double.class), 2, timings);
+
+        assertEquals(List.of(String.class), plan.get(0));
+        assertEquals(List.of(Integer.class, Long.class, Double.class), plan.get(1));
+    }
+
+    @Test
+    void select_givesEveryClassToExactlyOneShard() {
+        Map<String, Long> timings = Map.of(Long.class.getName(), 500L, Byte.class.getName(), 7L);
+
+        List<Class<?>> all = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            all.addAll(TestShards.select(CLASSES, new TestShards.Shard(i, 3), timings));
+        }
+
+        assertEquals(CLASSES.size(), all.size());
+        assertTrue(all.containsAll(CLASSES));
+    }
+
+    @Test
+    void shard_parsesOneBasedIndex() {
+        assertEquals(new TestShards.Shard(2, 3), TestShards.Shard.parse("2/3"));
+        assertThrows(IllegalArgumentException.class, () -> TestShards.Shard.parse("0/3"));
+        assertThrows(IllegalArgumentException.class, () -> TestShards.Shard.parse("4/3"));
+        assertThrows(IllegalArgumentException.class, () -> TestShards.Shard.parse("3"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.fattest;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserProfileCacheTest {
+
+    private static final long SECONDS = 1_000_000_000L;
+    private static final UserProfile ALICE = new UserProfile(1, "Alice", "alice@example.com");
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static AppConfig.Upstream.ProfileCache settings() {
+        AppConfig.Upstream.ProfileCache settings = new AppConfig.Upstream.ProfileCache();
+        settings.setTtl(Duration.ofSeconds(10));
+        settings.setStaleWhileRevalidate(Duration.ofSeconds(10));
+        settings.setNegativeTtl(Duration.ofSeconds(2));
+        return settings;
+    }
+
+    private UserProfileCache cache(LongFunction<Mono<UserProfile>> loader) {
+        return new UserProfileCache(id -> {
+            loads.incrementAndGet();
+            return loader.apply(id);
+        }, settings(), clock::get);
+    }
+
+    @Test
+    void get_servesFreshEntryWithoutLoading() {
+        UserProfileCache cache = cache(id -> Mono.just(ALICE));
+
+        assertEquals(ALICE, cache.get(1).block());
+        clock.addAndGet(9 * SECONDS);
+        assertEquals(ALICE, cache.get(1).block());
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_servesStaleEntryAndRefreshesInBackground() {
+        UserProfile renamed = new UserProfile(1, "Alicia", "alice@example.com");
+        UserProfileCache cache = cache(id -> Mono.just(loads.get() == 1 ? ALICE : renamed));
+        cache.get(1).block();
+
+        clock.addAndGet(15 * SECONDS);
+        assertEquals(ALICE, cache.get(1).block());
+        assertEquals(2, loads.get());
+        assertEquals(renamed, cache.get(1).block());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_reloadsOnceStaleWindowHasPassed() {
+        UserProfileCache cache = cache(id -> Mono.just(ALICE));
+        cache.get(1).block();
+
+        clock.addAndGet(25 * SECONDS);
+        assertEquals(ALICE, cache.get(1).block());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_cachesUnknownUsersForNegativeTtl() {
+        UserProfileCache cache = cache(id -> Mono.empty());
+
+        assertNull(cache.get(0).block());
+        clock.addAndGet(SECONDS);
+        assertNull(cache.get(0).block());
+        assertEquals(1, loads.get());
+
+        clock.addAndGet(2 * SECONDS);
+        assertNull(cache.get(0).block());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_doesNotCacheFailures() {
+        UserProfileCache cache = cache(id -> loads.get() == 1
+                ? Mono.error(new UpstreamException(503, "down"))
+                : Mono.just(ALICE));
+
+        assertThrows(UpstreamException.class, () -> cache.get(1).block());
+        assertEquals(ALICE, cache.get(1).block());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_sharesOneLoadBetweenConcurrentMisses() {
+        Sinks.One<UserProfile> upstream = Sinks.one();
+        UserProfileCache cache = cache(id -> upstream.asMono());
+
+        Mono<UserProfile> first = cache.get(1).cache();
+        Mono<UserProfile> second = cache.get(1).cache();
+        first.subscribe();
+        second.subscribe();
+        upstream.tryEmitValue(ALICE);
+
+        assertEquals(ALICE, first.block());
+        assertEquals(ALICE, second.block());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_passesThroughWhenDisabled() {
+        AppConfig.Upstream.ProfileCache settings = settings();
+        settings.setEnabled(false);
+        UserProfileCache cache = new UserProfileCache(id -> {
+            loads.incrementAndGet();
+            return Mono.just(ALICE);
+        }, settings, clock::get);
+
+        cache.get(1).block();
+        cache.get(1).block();
+
+        assertEquals(2, loads.get());
+    }
+}